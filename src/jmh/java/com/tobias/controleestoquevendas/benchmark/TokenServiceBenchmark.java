@@ -0,0 +1,100 @@
+package com.tobias.controleestoquevendas.benchmark;
+
+import com.tobias.controleestoquevendas.model.User;
+import com.tobias.controleestoquevendas.security.CustomUserDetails;
+import com.tobias.controleestoquevendas.service.RevogacaoTokenService;
+import com.tobias.controleestoquevendas.service.TokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ==============================================
+// TokenService: emissão, verificação e montagem da Authentication.
+// Os métodos "*ChaveTexto" reproduzem o caminho antigo (chave em String
+// decodificada e parser criado a cada chamada) para comparação.
+//
+// ./mvnw -Pjmh test-compile exec:exec
+// ==============================================
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenServiceBenchmark {
+
+    // Mesma chave do TokenService (usada só pelos métodos de comparação)
+    private static final String CHAVE_TEXTO = "mysecretkeymysecretkeymysecretkeymysecretkeymymymy";
+
+    private TokenService tokenService;
+    private Authentication login;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        // Sem repositório: nenhum token revogado, o filtro de Bloom sempre responde "não"
+        tokenService = new TokenService(10_000, new RevogacaoTokenService(null, 10_000, 0.001));
+
+        CustomUserDetails principal = new CustomUserDetails(new User(1L, "vendedor.bench", "senha", "VENDEDOR"));
+        login = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = tokenService.generateToken(login);
+    }
+
+    // ---------------------------------------------------------------------
+    // Emissão
+    // ---------------------------------------------------------------------
+    @Benchmark
+    public String gerarToken() {
+        return tokenService.generateToken(login);
+    }
+
+    @Benchmark
+    public String gerarTokenChaveTexto() {
+        return Jwts.builder()
+                .setSubject("vendedor.bench")
+                .claim("id", 1L)
+                .claim("roles", List.of("VENDEDOR"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 86400000))
+                .signWith(SignatureAlgorithm.HS256, CHAVE_TEXTO)
+                .compact();
+    }
+
+    // ---------------------------------------------------------------------
+    // Verificação (assinatura + claims)
+    // ---------------------------------------------------------------------
+    @Benchmark
+    public String validarToken() {
+        return tokenService.validateToken(token);
+    }
+
+    @Benchmark
+    public String validarTokenChaveTexto() {
+        Claims claims = Jwts.parser()
+                .setSigningKey(CHAVE_TEXTO)
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.getSubject();
+    }
+
+    // ---------------------------------------------------------------------
+    // Authentication (roles -> authorities, principal)
+    // ---------------------------------------------------------------------
+    @Benchmark
+    public Authentication autenticarSemCache() {
+        tokenService.invalidar(token); // força o parse e a verificação completos
+        return tokenService.getAuthentication(token);
+    }
+
+    @Benchmark
+    public Authentication autenticarComCache() {
+        return tokenService.getAuthentication(token);
+    }
+}
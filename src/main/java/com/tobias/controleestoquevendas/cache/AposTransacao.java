@@ -0,0 +1,44 @@
+package com.tobias.controleestoquevendas.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// ==============================================
+// AÇÕES EM MEMÓRIA ATRELADAS À TRANSAÇÃO CORRENTE
+//
+// Caches e contadores só podem refletir uma escrita depois que ela for confirmada.
+// Sem transação ativa (chamada direta, carga em massa), a ação roda na hora.
+// ==============================================
+public final class AposTransacao {
+
+    private AposTransacao() {
+    }
+
+    // Só se a transação for confirmada
+    public static void commit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    // Ao fim da transação, confirmada ou desfeita
+    public static void conclusao(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                acao.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,305 @@
+package com.tobias.controleestoquevendas.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// ==============================================
+// ÁRVORE DE PREFIXOS (radix tree) PARA AUTOCOMPLETAR NOMES
+//
+// Chaves normalizadas como no IndiceTrigramas (sem acento, minúsculas). Cada nome
+// entra uma vez para cada início de palavra: "arroz tio joao" é encontrado por
+// "arr", "tio" e "joa".
+//
+// Compacta: arestas com rótulo de vários caracteres (o final único de um nome é um
+// só nó) e filhos em arrays ordenados pelo primeiro caractere, sem mapas por nó.
+// Cada nó guarda os K melhores ids da sua subárvore (por volume, depois nome e id):
+// a consulta só desce pelo prefixo e devolve essa lista, sem percorrer a subárvore.
+// Uma inclusão ou exclusão recalcula os K melhores apenas no caminho da chave.
+//
+// O volume é fixo durante a vida da árvore; para refletir vendas novas, monte outra.
+// ==============================================
+public class ArvorePrefixos {
+
+    private final int k;
+    private final Map<Long, Long> volumes;
+    private final Map<Long, String> nomes = new HashMap<>();
+    private final Comparator<Long> ranking;
+    private final No raiz = new No("");
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ArvorePrefixos(int k, Map<Long, Long> volumes) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K deve ser positivo.");
+        }
+        this.k = k;
+        this.volumes = Map.copyOf(volumes);
+        this.ranking = Comparator.<Long>comparingLong(id -> -this.volumes.getOrDefault(id, 0L))
+                .thenComparing(id -> nomes.getOrDefault(id, ""))
+                .thenComparingLong(id -> id);
+    }
+
+    // Carga inicial: insere tudo e calcula os K melhores numa única passada
+    public static ArvorePrefixos construir(int k, Map<Long, Long> volumes, Map<Long, String> nomesPorId) {
+        ArvorePrefixos arvore = new ArvorePrefixos(k, volumes);
+        nomesPorId.forEach((id, nome) -> {
+            String normalizado = IndiceTrigramas.normalizar(nome);
+            if (!normalizado.isEmpty()) {
+                arvore.nomes.put(id, normalizado);
+                for (String chave : chaves(normalizado)) {
+                    arvore.inserir(chave, id);
+                }
+            }
+        });
+        arvore.recalcularTudo(arvore.raiz);
+        return arvore;
+    }
+
+    // Inclui ou renomeia
+    public void adicionar(long id, String nome) {
+        lock.writeLock().lock();
+        try {
+            retirarNome(id);
+            String normalizado = IndiceTrigramas.normalizar(nome);
+            if (normalizado.isEmpty()) {
+                return;
+            }
+            nomes.put(id, normalizado);
+            for (String chave : chaves(normalizado)) {
+                recalcular(inserir(chave, id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(long id) {
+        lock.writeLock().lock();
+        try {
+            retirarNome(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Até "limite" ids (no máximo K) cujo nome tem uma palavra começando pelo prefixo
+    public long[] buscar(String prefixo, int limite) {
+        String chave = IndiceTrigramas.normalizar(prefixo);
+        lock.readLock().lock();
+        try {
+            No no = raiz;
+            int pos = 0;
+            while (pos < chave.length()) {
+                No filho = no.filho(chave.charAt(pos));
+                if (filho == null) {
+                    return new long[0];
+                }
+                int comum = prefixoComum(filho.rotulo, chave, pos);
+                // O prefixo pode terminar no meio do rótulo; divergir antes disso é não achar
+                if (comum < filho.rotulo.length() && pos + comum < chave.length()) {
+                    return new long[0];
+                }
+                no = filho;
+                pos += comum;
+            }
+            return Arrays.copyOf(no.topo, Math.min(limite, no.topo.length));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Estrutura
+    // ---------------------------------------------------------------------
+
+    // Um sufixo por início de palavra
+    private static List<String> chaves(String normalizado) {
+        List<String> chaves = new ArrayList<>();
+        chaves.add(normalizado);
+        for (int i = normalizado.indexOf(' '); i >= 0; i = normalizado.indexOf(' ', i + 1)) {
+            if (i + 1 < normalizado.length()) {
+                chaves.add(normalizado.substring(i + 1));
+            }
+        }
+        return chaves;
+    }
+
+    // Devolve o caminho da raiz até o nó da chave (para recalcular os K melhores)
+    private List<No> inserir(String chave, long id) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        caminho.add(no);
+        int pos = 0;
+        while (pos < chave.length()) {
+            char c = chave.charAt(pos);
+            No filho = no.filho(c);
+            if (filho == null) {
+                filho = new No(chave.substring(pos));
+                no.adicionarFilho(filho);
+                pos = chave.length();
+            } else {
+                int comum = prefixoComum(filho.rotulo, chave, pos);
+                if (comum < filho.rotulo.length()) {
+                    // Divide a aresta: nó intermediário com o trecho em comum
+                    No meio = new No(filho.rotulo.substring(0, comum));
+                    filho.rotulo = filho.rotulo.substring(comum);
+                    meio.adicionarFilho(filho);
+                    meio.topo = filho.topo;
+                    no.substituirFilho(c, meio);
+                    filho = meio;
+                }
+                pos += comum;
+            }
+            no = filho;
+            caminho.add(no);
+        }
+        no.terminais = incluir(no.terminais, id);
+        return caminho;
+    }
+
+    private void retirarNome(long id) {
+        String anterior = nomes.get(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String chave : chaves(anterior)) {
+            retirar(chave, id);
+        }
+        nomes.remove(id);
+    }
+
+    private void retirar(String chave, long id) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        caminho.add(no);
+        int pos = 0;
+        while (pos < chave.length()) {
+            No filho = no.filho(chave.charAt(pos));
+            if (filho == null || !chave.startsWith(filho.rotulo, pos)) {
+                return;
+            }
+            no = filho;
+            caminho.add(no);
+            pos += filho.rotulo.length();
+        }
+        no.terminais = excluir(no.terminais, id);
+
+        // Nós que ficaram vazios saem da árvore; os demais têm os K melhores recalculados
+        for (int i = caminho.size() - 1; i >= 0; i--) {
+            No atual = caminho.get(i);
+            if (i > 0 && atual.terminais.length == 0 && atual.filhos.length == 0) {
+                caminho.get(i - 1).removerFilho(atual.rotulo.charAt(0));
+            } else {
+                atual.topo = melhores(atual);
+            }
+        }
+    }
+
+    private void recalcular(List<No> caminho) {
+        for (int i = caminho.size() - 1; i >= 0; i--) {
+            caminho.get(i).topo = melhores(caminho.get(i));
+        }
+    }
+
+    private void recalcularTudo(No no) {
+        for (No filho : no.filhos) {
+            recalcularTudo(filho);
+        }
+        no.topo = melhores(no);
+    }
+
+    // K melhores entre os ids do próprio nó e os K melhores de cada filho
+    private long[] melhores(No no) {
+        Set<Long> candidatos = new LinkedHashSet<>();
+        for (long id : no.terminais) {
+            candidatos.add(id);
+        }
+        for (No filho : no.filhos) {
+            for (long id : filho.topo) {
+                candidatos.add(id);
+            }
+        }
+        return candidatos.stream().sorted(ranking).limit(k).mapToLong(Long::longValue).toArray();
+    }
+
+    private static int prefixoComum(String rotulo, String chave, int pos) {
+        int i = 0;
+        while (i < rotulo.length() && pos + i < chave.length() && rotulo.charAt(i) == chave.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long[] incluir(long[] ids, long id) {
+        for (long existente : ids) {
+            if (existente == id) {
+                return ids;
+            }
+        }
+        long[] novos = Arrays.copyOf(ids, ids.length + 1);
+        novos[ids.length] = id;
+        return novos;
+    }
+
+    private static long[] excluir(long[] ids, long id) {
+        return Arrays.stream(ids).filter(existente -> existente != id).toArray();
+    }
+
+    private static final class No {
+
+        private String rotulo;
+        private char[] iniciais = new char[0];
+        private No[] filhos = new No[0];
+        private long[] terminais = new long[0];
+        private long[] topo = new long[0];
+
+        private No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+
+        private No filho(char c) {
+            int i = Arrays.binarySearch(iniciais, c);
+            return i >= 0 ? filhos[i] : null;
+        }
+
+        private void adicionarFilho(No filho) {
+            char c = filho.rotulo.charAt(0);
+            int insercao = -Arrays.binarySearch(iniciais, c) - 1;
+            char[] novasIniciais = new char[iniciais.length + 1];
+            No[] novosFilhos = new No[filhos.length + 1];
+            System.arraycopy(iniciais, 0, novasIniciais, 0, insercao);
+            System.arraycopy(filhos, 0, novosFilhos, 0, insercao);
+            novasIniciais[insercao] = c;
+            novosFilhos[insercao] = filho;
+            System.arraycopy(iniciais, insercao, novasIniciais, insercao + 1, iniciais.length - insercao);
+            System.arraycopy(filhos, insercao, novosFilhos, insercao + 1, filhos.length - insercao);
+            iniciais = novasIniciais;
+            filhos = novosFilhos;
+        }
+
+        private void substituirFilho(char c, No filho) {
+            filhos[Arrays.binarySearch(iniciais, c)] = filho;
+        }
+
+        private void removerFilho(char c) {
+            int i = Arrays.binarySearch(iniciais, c);
+            if (i < 0) {
+                return;
+            }
+            char[] novasIniciais = new char[iniciais.length - 1];
+            No[] novosFilhos = new No[filhos.length - 1];
+            System.arraycopy(iniciais, 0, novasIniciais, 0, i);
+            System.arraycopy(filhos, 0, novosFilhos, 0, i);
+            System.arraycopy(iniciais, i + 1, novasIniciais, i, iniciais.length - i - 1);
+            System.arraycopy(filhos, i + 1, novosFilhos, i, filhos.length - i - 1);
+            iniciais = novasIniciais;
+            filhos = novosFilhos;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.tobias.controleestoquevendas.cache;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ==============================================
+// CACHE EM MEMÓRIA COM LIMITE DE TAMANHO E EXPIRAÇÃO
+//
+// Leitura sem lock (ConcurrentHashMap). Cada entrada tem um instante de expiração
+// próprio (TTL padrão ou informado no put). Ao atingir a capacidade, remove as
+// expiradas e, se ainda faltar espaço, as ~10% que expiram primeiro.
+// ==============================================
+public class CacheExpiravel<K, V> {
+
+    private final ConcurrentHashMap<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+    private final int capacidade;
+    private final long ttlMillis;
+
+    public CacheExpiravel(int capacidade, Duration ttl) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser positiva.");
+        }
+        this.capacidade = capacidade;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    // Retorna null se a chave não existir ou já tiver expirado
+    public V get(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada == null) {
+            return null;
+        }
+        if (entrada.expiraEm <= System.currentTimeMillis()) {
+            entradas.remove(chave, entrada);
+            return null;
+        }
+        return entrada.valor;
+    }
+
+    public void put(K chave, V valor) {
+        put(chave, valor, System.currentTimeMillis() + ttlMillis);
+    }
+
+    // Expiração explícita (epoch em ms), limitada ao TTL do cache
+    public void put(K chave, V valor, long expiraEmMillis) {
+        long expiraEm = Math.min(expiraEmMillis, System.currentTimeMillis() + ttlMillis);
+        if (entradas.size() >= capacidade && !entradas.containsKey(chave)) {
+            abrirEspaco();
+        }
+        entradas.put(chave, new Entrada<>(valor, expiraEm));
+    }
+
+    public void remove(K chave) {
+        entradas.remove(chave);
+    }
+
+    public void clear() {
+        entradas.clear();
+    }
+
+    public int size() {
+        return entradas.size();
+    }
+
+    private synchronized void abrirEspaco() {
+        if (entradas.size() < capacidade) {
+            return; // outra thread já liberou espaço
+        }
+        long agora = System.currentTimeMillis();
+        entradas.values().removeIf(e -> e.expiraEm <= agora);
+
+        int excesso = entradas.size() - capacidade + Math.max(1, capacidade / 10);
+        if (excesso > 0) {
+            entradas.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().expiraEm))
+                    .limit(excesso)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entradas::remove);
+        }
+    }
+
+    private record Entrada<V>(V valor, long expiraEm) {
+    }
+}
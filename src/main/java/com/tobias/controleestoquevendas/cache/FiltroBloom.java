@@ -0,0 +1,80 @@
+package com.tobias.controleestoquevendas.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// ==============================================
+// FILTRO DE BLOOM (conjunto probabilístico de strings)
+//
+// podeConter == false -> com certeza o valor nunca foi adicionado.
+// podeConter == true  -> provavelmente foi (falso positivo com a taxa escolhida).
+// Dimensionado pelo número esperado de elementos e pela taxa de falso positivo;
+// passar do número esperado aumenta a taxa. Não suporta remoção: para "limpar",
+// monta-se um filtro novo. Leitura e escrita sem lock (AtomicLongArray).
+// ==============================================
+public class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long totalBits;
+    private final int funcoesHash;
+
+    public FiltroBloom(long elementosEsperados, double taxaFalsoPositivo) {
+        if (elementosEsperados <= 0) {
+            throw new IllegalArgumentException("O número esperado de elementos deve ser positivo.");
+        }
+        if (taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("A taxa de falso positivo deve estar entre 0 e 1.");
+        }
+        // m = -n ln(p) / (ln 2)^2   e   k = (m / n) ln 2
+        long m = (long) Math.ceil(-elementosEsperados * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.totalBits = Math.max(64, m);
+        this.funcoesHash = Math.max(1, (int) Math.round((double) totalBits / elementosEsperados * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((totalBits + 63) / 64));
+    }
+
+    public void adicionar(String valor) {
+        long h1 = fnv1a64(valor);
+        long h2 = misturar(h1);
+        for (int i = 0; i < funcoesHash; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long atual;
+            do {
+                atual = bits.get(palavra);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palavra, atual, atual | mascara));
+        }
+    }
+
+    public boolean podeConter(String valor) {
+        long h1 = fnv1a64(valor);
+        long h2 = misturar(h1);
+        for (int i = 0; i < funcoesHash; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hashes por "double hashing" (h1 + i*h2): dois hashes de 64 bits bastam para k funções
+    private static long fnv1a64(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Finalizador do SplitMix64; ímpar para nunca repetir a mesma posição em todas as funções
+    private static long misturar(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return (x ^ (x >>> 31)) | 1L;
+    }
+}
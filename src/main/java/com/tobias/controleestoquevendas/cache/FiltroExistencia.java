@@ -0,0 +1,77 @@
+package com.tobias.controleestoquevendas.cache;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// ==============================================
+// "JÁ EXISTE?" SEM IR AO BANCO NO CASO COMUM (filtro de Bloom sobre uma coluna única)
+//
+// podeExistir == false -> o valor com certeza não está na tabela: dispensa o SELECT.
+// podeExistir == true  -> talvez esteja: quem chama confirma no banco.
+// Antes da primeira carga tudo "pode existir". A constraint UNIQUE continua sendo
+// a palavra final (duas inserções simultâneas passam pelas duas verificações).
+//
+// A chave é normalizada para que valores iguais para o banco (collation sem
+// distinção de caixa e acento, CPF com ou sem pontuação) caiam no mesmo lugar.
+// Valores excluídos ou renomeados continuam no filtro até a próxima reconstrução:
+// custam só a consulta de confirmação.
+// ==============================================
+public class FiltroExistencia {
+
+    private final long elementosMinimos;
+    private final double taxaFalsoPositivo;
+    private final UnaryOperator<String> normalizacao;
+
+    // null = ainda não carregado
+    private volatile FiltroBloom filtro;
+
+    // Adicionados desde o início da última reconstrução (não podem se perder na troca)
+    private final Set<String> recentes = ConcurrentHashMap.newKeySet();
+
+    public FiltroExistencia(long elementosMinimos, double taxaFalsoPositivo, UnaryOperator<String> normalizacao) {
+        this.elementosMinimos = elementosMinimos;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.normalizacao = normalizacao;
+    }
+
+    public boolean podeExistir(String valor) {
+        FiltroBloom atual = filtro;
+        return atual == null || valor == null || atual.podeConter(normalizacao.apply(valor));
+    }
+
+    // Chamado ao gravar; um bit a mais, se a transação falhar, só custa uma consulta
+    public void adicionar(String valor) {
+        if (valor == null) {
+            return;
+        }
+        String chave = normalizacao.apply(valor);
+        recentes.add(chave);
+        FiltroBloom atual = filtro;
+        if (atual != null) {
+            atual.adicionar(chave);
+        }
+    }
+
+    // Monta um filtro novo com os valores atuais da tabela
+    public void reconstruir(Supplier<List<String>> valoresDaTabela) {
+        Set<String> recentesAntes = new HashSet<>(recentes);
+        List<String> valores = valoresDaTabela.get();
+
+        // Com folga para crescer até a próxima reconstrução
+        FiltroBloom novo = new FiltroBloom(Math.max(elementosMinimos, valores.size() * 2L), taxaFalsoPositivo);
+        for (String valor : valores) {
+            if (valor != null) {
+                novo.adicionar(normalizacao.apply(valor));
+            }
+        }
+        filtro = novo;
+
+        // Gravados durante a leitura entram no filtro novo
+        recentes.forEach(novo::adicionar);
+        recentes.removeAll(recentesAntes);
+    }
+}
@@ -0,0 +1,245 @@
+package com.tobias.controleestoquevendas.cache;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// ==============================================
+// ÍNDICE DE TRIGRAMAS PARA BUSCA POR TRECHO DO NOME (equivalente a LIKE '%x%')
+//
+// Nomes e termos passam pela mesma normalização: sem acento, minúsculos, e
+// pontuação trocada por espaço ("Pão-de-Açúcar" -> "pao de acucar").
+// Cada trigrama do nome aponta para uma lista ordenada de ids (long[]). A busca
+// intersecta as listas dos trigramas do termo, começando pela menor, e confirma
+// cada candidato com contains() no nome normalizado. Termos com menos de 3
+// caracteres percorrem todos os nomes (ainda em memória).
+//
+// Resultado ordenado por relevância: nome igual ao termo, nome começando pelo
+// termo, palavra começando pelo termo, termo no meio; depois nome mais curto e id.
+//
+// Leitura sem lock: as listas de ids são substituídas, nunca alteradas. As escritas
+// (raras: cadastro e renomeação) são serializadas.
+// ==============================================
+public class IndiceTrigramas<T> {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ConcurrentHashMap<Long, Entrada<T>> entradas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, long[]> postagens = new ConcurrentHashMap<>();
+
+    // Carga inicial: monta cada lista de ids de uma vez
+    // (adicionar um a um copiaria as listas a cada inclusão)
+    public static <E, T> IndiceTrigramas<T> construir(Collection<E> origem, Function<E, Long> id,
+                                                      Function<E, String> nome, Function<E, T> valor) {
+        IndiceTrigramas<T> indice = new IndiceTrigramas<>();
+        Map<Long, List<Long>> listas = new HashMap<>();
+        for (E elemento : origem) {
+            Long chave = id.apply(elemento);
+            String normalizado = normalizar(nome.apply(elemento));
+            indice.entradas.put(chave, new Entrada<>(normalizado, valor.apply(elemento)));
+            for (Long trigrama : trigramas(normalizado)) {
+                listas.computeIfAbsent(trigrama, t -> new ArrayList<>()).add(chave);
+            }
+        }
+        listas.forEach((trigrama, ids) -> {
+            long[] ordenados = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            indice.postagens.put(trigrama, ordenados);
+        });
+        return indice;
+    }
+
+    // Inclui ou substitui (renomeação) o nome do id
+    public synchronized void adicionar(Long id, String nome, T valor) {
+        String normalizado = normalizar(nome);
+        Set<Long> novos = trigramas(normalizado);
+
+        Entrada<T> anterior = entradas.put(id, new Entrada<>(normalizado, valor));
+        Set<Long> antigos = anterior == null ? Set.of() : trigramas(anterior.nome);
+
+        for (Long trigrama : antigos) {
+            if (!novos.contains(trigrama)) {
+                retirar(trigrama, id);
+            }
+        }
+        for (Long trigrama : novos) {
+            if (!antigos.contains(trigrama)) {
+                inserir(trigrama, id);
+            }
+        }
+    }
+
+    public synchronized void remover(Long id) {
+        Entrada<T> anterior = entradas.remove(id);
+        if (anterior != null) {
+            for (Long trigrama : trigramas(anterior.nome)) {
+                retirar(trigrama, id);
+            }
+        }
+    }
+
+    public int tamanho() {
+        return entradas.size();
+    }
+
+    // ---------------------------------------------------------------------
+    // BUSCA
+    // ---------------------------------------------------------------------
+    public List<T> buscar(String termo, int limite) {
+        String consulta = normalizar(termo);
+        if (consulta.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        List<Resultado<T>> encontrados = new ArrayList<>();
+        if (consulta.length() < 3) {
+            for (Map.Entry<Long, Entrada<T>> entrada : entradas.entrySet()) {
+                conferir(entrada.getKey(), entrada.getValue(), consulta, encontrados);
+            }
+        } else {
+            for (long id : candidatos(consulta)) {
+                Entrada<T> entrada = entradas.get(id);
+                if (entrada != null) {
+                    conferir(id, entrada, consulta, encontrados);
+                }
+            }
+        }
+
+        encontrados.sort(Comparator.<Resultado<T>>comparingInt(r -> r.relevancia())
+                .thenComparingInt(r -> r.tamanhoNome())
+                .thenComparingLong(r -> r.id()));
+
+        List<T> valores = new ArrayList<>(Math.min(limite, encontrados.size()));
+        for (int i = 0; i < encontrados.size() && i < limite; i++) {
+            valores.add(encontrados.get(i).valor());
+        }
+        return valores;
+    }
+
+    // Ids presentes nas listas de TODOS os trigramas do termo
+    private long[] candidatos(String consulta) {
+        Set<Long> trigramas = trigramas(consulta);
+        long[][] listas = new long[trigramas.size()][];
+        int i = 0;
+        for (Long trigrama : trigramas) {
+            long[] ids = postagens.get(trigrama);
+            if (ids == null) {
+                return new long[0];
+            }
+            listas[i++] = ids;
+        }
+        Arrays.sort(listas, Comparator.comparingInt(lista -> lista.length));
+
+        long[] resultado = listas[0];
+        for (int j = 1; j < listas.length && resultado.length > 0; j++) {
+            resultado = intersectar(resultado, listas[j]);
+        }
+        return resultado;
+    }
+
+    private static <T> void conferir(long id, Entrada<T> entrada, String consulta, List<Resultado<T>> encontrados) {
+        int posicao = entrada.nome.indexOf(consulta);
+        if (posicao < 0) {
+            return;
+        }
+        int relevancia;
+        if (entrada.nome.length() == consulta.length()) {
+            relevancia = 0;
+        } else if (posicao == 0) {
+            relevancia = 1;
+        } else if (entrada.nome.contains(" " + consulta)) {
+            relevancia = 2;
+        } else {
+            relevancia = 3;
+        }
+        encontrados.add(new Resultado<>(id, relevancia, entrada.nome.length(), entrada.valor));
+    }
+
+    // ---------------------------------------------------------------------
+    // Normalização e trigramas
+    // ---------------------------------------------------------------------
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcento = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcento.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Cada trigrama vira um long (3 chars de 16 bits)
+    private static Set<Long> trigramas(String texto) {
+        Set<Long> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            trigramas.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+        return trigramas;
+    }
+
+    private void inserir(Long trigrama, long id) {
+        postagens.compute(trigrama, (t, ids) -> {
+            if (ids == null) {
+                return new long[]{id};
+            }
+            int posicao = Arrays.binarySearch(ids, id);
+            if (posicao >= 0) {
+                return ids;
+            }
+            int insercao = -posicao - 1;
+            long[] novos = new long[ids.length + 1];
+            System.arraycopy(ids, 0, novos, 0, insercao);
+            novos[insercao] = id;
+            System.arraycopy(ids, insercao, novos, insercao + 1, ids.length - insercao);
+            return novos;
+        });
+    }
+
+    private void retirar(Long trigrama, long id) {
+        postagens.computeIfPresent(trigrama, (t, ids) -> {
+            int posicao = Arrays.binarySearch(ids, id);
+            if (posicao < 0) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] novos = new long[ids.length - 1];
+            System.arraycopy(ids, 0, novos, 0, posicao);
+            System.arraycopy(ids, posicao + 1, novos, posicao, ids.length - posicao - 1);
+            return novos;
+        });
+    }
+
+    private static long[] intersectar(long[] a, long[] b) {
+        long[] comum = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                comum[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(comum, n);
+    }
+
+    private record Entrada<T>(String nome, T valor) {
+    }
+
+    private record Resultado<T>(long id, int relevancia, int tamanhoNome, T valor) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.tobias.controleestoquevendas.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ==============================================
+// CONTADORES DE VERSÃO DE UM RECURSO (coleção + cada entidade), usados como ETag
+//
+// Toda escrita incrementa a versão da entidade e a da coleção depois do commit.
+// A "geração" muda quando o recurso pode ter mudado sem passar pelos contadores
+// (recarga do banco, alteração em massa) e começa no instante da subida, para que
+// um ETag emitido antes de um restart não seja aceito depois dele.
+//
+// Os contadores são locais ao processo: só valem com UMA instância da aplicação.
+// Leia o ETag ANTES dos dados: se uma escrita entrar no meio, o cliente recebe os
+// dados novos com o ETag antigo e só perde o próximo 304.
+// ==============================================
+public class VersoesRecurso {
+
+    private final String nome;
+    private final AtomicLong geracao = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong colecao = new AtomicLong();
+    private final ConcurrentHashMap<Long, Long> entidades = new ConcurrentHashMap<>();
+
+    public VersoesRecurso(String nome) {
+        this.nome = nome;
+    }
+
+    public String etagColecao() {
+        return "\"" + nome + "-" + geracao.get() + "-" + colecao.get() + "\"";
+    }
+
+    public String etag(Long id) {
+        return "\"" + nome + "-" + id + "-" + geracao.get() + "-" + entidades.getOrDefault(id, 0L) + "\"";
+    }
+
+    public void incrementar(Long id) {
+        entidades.merge(id, 1L, Long::sum);
+        colecao.incrementAndGet();
+    }
+
+    // Invalida todos os ETags já emitidos
+    public void novaGeracao() {
+        geracao.incrementAndGet();
+    }
+
+    // Na transação que altera a entidade; sem transação, incrementa na hora
+    public void incrementarAposCommit(Long id) {
+        AposTransacao.commit(() -> incrementar(id));
+    }
+}
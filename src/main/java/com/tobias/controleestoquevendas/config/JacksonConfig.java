@@ -0,0 +1,19 @@
+package com.tobias.controleestoquevendas.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // DTOs com @JsonFilter (ex: VendaResponseDTO e o ?fields=) saem completos
+    // quando a requisição não pede um filtro próprio
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer filtroPadraoDeCampos() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
@@ -1,10 +1,22 @@
 package com.tobias.controleestoquevendas.controller;
 
+import com.tobias.controleestoquevendas.dto.PaginaCursorDTO;
 import com.tobias.controleestoquevendas.dto.RegisterRequest;
+import com.tobias.controleestoquevendas.dto.RevogarTokenRequest;
 import com.tobias.controleestoquevendas.model.User;
 import com.tobias.controleestoquevendas.repository.UserRepository;
+import com.tobias.controleestoquevendas.security.LoginExecutor;
+import com.tobias.controleestoquevendas.service.FiltrosCadastro;
 import com.tobias.controleestoquevendas.service.TokenService;
+import com.tobias.controleestoquevendas.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,6 +31,10 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 
@@ -26,17 +42,38 @@ import java.util.stream.Collectors;
 @RequestMapping("/auth")
 public class AuthController {
 
+    // Campos aceitos em ?sort= na listagem de usuários
+    private static final Set<String> CAMPOS_ORDENACAO_USUARIOS = Set.of("id", "username", "role");
+
     private final AuthenticationManager authManager;
     private final TokenService tokenService;
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final LoginExecutor loginExecutor;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final FiltrosCadastro filtrosCadastro;
+    private final int tamanhoMaximoPagina;
 
     public AuthController(AuthenticationManager authManager, TokenService tokenService, UserRepository userRepository,
-                          BCryptPasswordEncoder passwordEncoder) {
+                          BCryptPasswordEncoder passwordEncoder, LoginExecutor loginExecutor,
+                          UserDetailsServiceImpl userDetailsService, FiltrosCadastro filtrosCadastro,
+                          @Value("${spring.data.web.pageable.max-page-size:100}") int tamanhoMaximoPagina) {
         this.authManager = authManager;
         this.tokenService = tokenService;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.loginExecutor = loginExecutor;
+        this.userDetailsService = userDetailsService;
+        this.filtrosCadastro = filtrosCadastro;
+        this.tamanhoMaximoPagina = tamanhoMaximoPagina;
+    }
+
+    // Pool de login cheio: recusa na hora em vez de prender a thread do Tomcat
+    private static CompletableFuture<ResponseEntity<?>> servicoOcupado() {
+        return CompletableFuture.completedFuture(ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("message", "Muitas tentativas de login no momento. Tente novamente em instantes.")));
     }
 
     private Map<String, String> formatarErros(BindingResult bindingResult) {
@@ -56,9 +93,17 @@ public class AuthController {
     }
 
 
+    // O BCrypt roda no LoginExecutor; a thread do Tomcat é liberada enquanto isso
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody User loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody User loginRequest) {
+        try {
+            return loginExecutor.executar(() -> autenticar(loginRequest));
+        } catch (RejectedExecutionException e) {
+            return servicoOcupado();
+        }
+    }
 
+    private ResponseEntity<?> autenticar(User loginRequest) {
         try {
             // Tenta autenticar
             var authentication = authManager.authenticate(
@@ -88,12 +133,22 @@ public class AuthController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody @Valid RegisterRequest req, BindingResult bindingResult) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody @Valid RegisterRequest req, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest().body(formatarErros(bindingResult));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(formatarErros(bindingResult)));
+        }
+        try {
+            return loginExecutor.executar(() -> registrar(req));
+        } catch (RejectedExecutionException e) {
+            return servicoOcupado();
         }
-        // Verifica se o username já existe
-        if (userRepository.existsByUsername(req.username)) {
+    }
+
+    private ResponseEntity<?> registrar(RegisterRequest req) {
+        // Verifica se o username já existe: o filtro descarta os nomes novos sem ir ao
+        // banco; os demais saem do cache de usuários
+        if (filtrosCadastro.usernames().podeExistir(req.username)
+                && userDetailsService.buscarUsuario(req.username).isPresent()) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body("Erro: nome de usuário já existe");
         }
@@ -104,7 +159,15 @@ public class AuthController {
         user.setPassword(passwordEncoder.encode(req.password));
         user.setRole(req.role.toUpperCase());
 
-        userRepository.save(user);
+        filtrosCadastro.usernames().adicionar(user.getUsername());
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registro simultâneo do mesmo username: a constraint UNIQUE barra
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Erro: nome de usuário já existe");
+        }
+        userDetailsService.invalidar(user.getUsername());
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body("Usuário registrado com sucesso");
     }
@@ -112,12 +175,59 @@ public class AuthController {
 
 
 
+    // Logout: o token do header "Auth" deixa de ser aceito (até então valia por 24h)
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader("Auth") String token) {
+        try {
+            tokenService.revogar(token);
+            return ResponseEntity.noContent().build();
+        } catch (JwtException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Token inválido ou expirado."));
+        }
+    }
+
+    // Revogação de um token qualquer pelo gerente (ex: aparelho perdido)
+    @PostMapping("/revogar")
+    public ResponseEntity<?> revogarToken(@RequestBody @Valid RevogarTokenRequest req, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body(formatarErros(bindingResult));
+        }
+        try {
+            tokenService.revogar(req.token);
+            return ResponseEntity.noContent().build();
+        } catch (JwtException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Token inválido ou já expirado."));
+        }
+    }
+
+    // Ex: GET /auth/users?page=0&size=50&sort=username (size limitado por spring.data.web.pageable.max-page-size)
     @GetMapping("/users")
-    public List<String> listUsersRoles() {
-        return userRepository.findAll()
-                .stream()
-                .map(u -> u.getUsername() + " -> " + u.getRole())
-                .toList();
+    public ResponseEntity<?> listUsersRoles(@PageableDefault(size = 20, sort = "id") Pageable pageable) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarOrdenacao(pageable.getSort(), CAMPOS_ORDENACAO_USUARIOS);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        Page<String> usuarios = userRepository.findAll(pageable).map(AuthController::descreverUsuario);
+        return ResponseEntity.ok(usuarios);
+    }
+
+    // Keyset por id: GET /auth/users?apos=0&size=100  ->  GET /auth/users?apos=<proximoCursor>&size=100
+    @GetMapping(value = "/users", params = "apos")
+    public ResponseEntity<?> listUsersRolesApos(@RequestParam Long apos, @RequestParam(defaultValue = "20") int size) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarTamanho("size", size, tamanhoMaximoPagina);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        // size + 1: a linha extra só indica se existe próxima página
+        List<User> usuarios = userRepository.findByIdGreaterThanOrderByIdAsc(apos, PageRequest.of(0, size + 1));
+        return ResponseEntity.ok(PaginaCursorDTO.porId(usuarios, size, User::getId)
+                .map(AuthController::descreverUsuario));
+    }
+
+    private static String descreverUsuario(User u) {
+        return u.getUsername() + " -> " + u.getRole();
     }
 
     @GetMapping("/role")
@@ -1,18 +1,30 @@
 package com.tobias.controleestoquevendas.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.tobias.controleestoquevendas.model.Cliente;
-import com.tobias.controleestoquevendas.repository.ClienteRepository;
 import com.tobias.controleestoquevendas.service.ClienteService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,7 +34,13 @@ public class ClienteController {
     @Autowired
     private ClienteService service;
     @Autowired
-    private ClienteRepository clienteRepository;
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.data.web.pageable.max-page-size:100}")
+    private int tamanhoMaximoPagina;
+
+    @Value("${clientes.exportacao.tamanho-bloco:500}")
+    private int tamanhoBlocoExportacao;
 
     private Map<String, String> formatarErros(BindingResult bindingResult) {
         return bindingResult.getFieldErrors().stream()
@@ -40,33 +58,106 @@ public class ClienteController {
             return ResponseEntity.badRequest().body(formatarErros(bindingResult));
         }
 
-        if (clienteRepository.existsByCpf(cliente.getCpf())) {
+        if (service.existeCpf(cliente.getCpf())) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body("Erro: já existe um cliente com esse CPF");
         }
 
-        Cliente novo = clienteRepository.save(cliente);
-        return ResponseEntity.status(HttpStatus.CREATED).body(novo);
+        // Cadastro simultâneo do mesmo CPF passa pela verificação; a constraint UNIQUE barra
+        try {
+            Cliente novo = service.criarCliente(cliente);
+            return ResponseEntity.status(HttpStatus.CREATED).body(novo);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Erro: já existe um cliente com esse CPF");
+        }
     }
 
-    // Read All
+    // Read All (paginado)
+    // Ex: GET /clientes?page=0&size=50&sort=nome,asc (size limitado por spring.data.web.pageable.max-page-size)
+    // If-None-Match com o ETag atual -> 304, sem consultar o banco
     @GetMapping
-    public List<Cliente> listarClientes() {
-        return service.listarClientes();
+    public ResponseEntity<?> listarClientes(@PageableDefault(size = 20, sort = "id") Pageable pageable,
+                                            WebRequest request) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarOrdenacao(pageable.getSort(), ClienteService.CAMPOS_ORDENACAO);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        String etag = service.etagClientes();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.listarClientesPaginado(pageable));
+    }
+
+    // Read All por cursor (keyset), em ordem de id
+    // Ex: GET /clientes?apos=0&size=100  ->  GET /clientes?apos=<proximoCursor>&size=100
+    @GetMapping(params = "apos")
+    public ResponseEntity<?> listarClientesApos(@RequestParam Long apos,
+                                                @RequestParam(defaultValue = "20") int size,
+                                                WebRequest request) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarTamanho("size", size, tamanhoMaximoPagina);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        String etag = service.etagClientes();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.listarClientesApos(apos, size));
+    }
+
+    // Exportação completa (NDJSON, um cliente por linha), lida em blocos por id
+    // e escrita direto na resposta: memória constante qualquer que seja a tabela.
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarClientes() {
+        ObjectWriter writer = objectMapper.writer().withRootValueSeparator("\n");
+
+        StreamingResponseBody corpo = saida -> {
+            try (SequenceWriter escritor = writer.writeValues(saida)) {
+                service.percorrerClientes(tamanhoBlocoExportacao, bloco -> {
+                    try {
+                        escritor.writeAll(bloco);
+                        escritor.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(corpo);
     }
 
     // Read One (por ID)
     @GetMapping("/{id}")
-    public ResponseEntity<Cliente> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<Cliente> buscarPorId(@PathVariable Long id, WebRequest request) {
+        String etag = service.etagCliente(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         return service.buscarPorId(id)
-                .map(ResponseEntity::ok)
+                .map(cliente -> ResponseEntity.ok().eTag(etag).body(cliente))
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // Read One (por nome)
+    // Read (por trecho do nome, sem distinção de caixa e acento), mais relevantes primeiro
+    // Ex: GET /clientes/search?nome=joao&limite=10
     @GetMapping("/search")
-    public List<Cliente> buscarPorNome(@RequestParam String nome) {
-        return service.buscarPorNome(nome);
+    public ResponseEntity<?> buscarPorNome(@RequestParam String nome,
+                                           @RequestParam(defaultValue = "20") int limite,
+                                           WebRequest request) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarTamanho("limite", limite, tamanhoMaximoPagina);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        String etag = service.etagClientes();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.buscarPorNome(nome, limite));
     }
 
     // Update
@@ -79,8 +170,13 @@ public class ClienteController {
             cliente.setNome(clienteAtualizado.getNome());
             cliente.setCpf(clienteAtualizado.getCpf());
             cliente.setTelefone(clienteAtualizado.getTelefone());
-            Cliente atualizado = service.atualizarCliente(cliente);
-            return ResponseEntity.ok(atualizado);
+            try {
+                Cliente atualizado = service.atualizarCliente(cliente);
+                return ResponseEntity.ok(atualizado);
+            } catch (DataIntegrityViolationException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Erro: já existe um cliente com esse CPF");
+            }
         }).orElse(ResponseEntity.notFound().build());
     }
 
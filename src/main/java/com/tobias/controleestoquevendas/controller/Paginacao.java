@@ -0,0 +1,34 @@
+package com.tobias.controleestoquevendas.controller;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Validação dos parâmetros das listagens (?sort=, ?size=, ?limite=): 400 com {"error": ...}
+final class Paginacao {
+
+    private Paginacao() {
+    }
+
+    static Optional<ResponseEntity<?>> validarOrdenacao(Sort sort, Set<String> camposValidos) {
+        for (Sort.Order ordem : sort) {
+            if (!camposValidos.contains(ordem.getProperty())) {
+                return Optional.of(ResponseEntity.badRequest().body(Map.of("error",
+                        "Campo de ordenação desconhecido: " + ordem.getProperty() + ". Campos válidos: "
+                                + String.join(",", camposValidos.stream().sorted().toList()))));
+            }
+        }
+        return Optional.empty();
+    }
+
+    static Optional<ResponseEntity<?>> validarTamanho(String parametro, int valor, int maximo) {
+        if (valor < 1 || valor > maximo) {
+            return Optional.of(ResponseEntity.badRequest()
+                    .body(Map.of("error", "O parâmetro " + parametro + " deve estar entre 1 e " + maximo + ".")));
+        }
+        return Optional.empty();
+    }
+}
@@ -1,17 +1,31 @@
 package com.tobias.controleestoquevendas.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.tobias.controleestoquevendas.dto.CategoriaResumoDTO;
 import com.tobias.controleestoquevendas.model.Produto;
-import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import com.tobias.controleestoquevendas.service.ImportacaoProdutosService;
 import com.tobias.controleestoquevendas.service.ProdutoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,7 +36,13 @@ public class ProdutoController {
     private ProdutoService service;
 
     @Autowired
-    private ProdutoRepository produtoRepository;
+    private ImportacaoProdutosService importacaoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.data.web.pageable.max-page-size:100}")
+    private int tamanhoMaximoPagina;
 
     private Map<String, String> formatarErros(BindingResult bindingResult) {
         return bindingResult.getFieldErrors().stream()
@@ -40,35 +60,159 @@ public class ProdutoController {
             return ResponseEntity.badRequest().body(formatarErros(bindingResult));
         }
 
-        if (produtoRepository.existsByNome(produto.getNome())) {
+        if (service.existeNome(produto.getNome())) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body("Erro: já existe um produto com o nome '" + produto.getNome() + "'.");
         }
 
-        Produto novo = produtoRepository.save(produto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(novo);
+        // Cadastro simultâneo do mesmo nome passa pela verificação; a constraint UNIQUE barra
+        try {
+            Produto novo = service.criarProduto(produto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(novo);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Erro: já existe um produto com o nome '" + produto.getNome() + "'.");
+        }
+    }
+
+    // --- C - Importação em massa (POST) ---
+    // Corpo em CSV (text/csv, com cabeçalho) ou NDJSON (application/x-ndjson), lido em streaming.
+    // ?atualizar=true atualiza categoria e preço dos produtos já cadastrados em vez de recusá-los.
+    // Cada linha recusada aparece em "erros"; as demais são gravadas.
+    @PostMapping(value = "/importacao", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importarProdutos(InputStream corpo,
+                                              @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                              @RequestParam(defaultValue = "false") boolean atualizar) {
+        ImportacaoProdutosService.Formato formato = MediaType.parseMediaType(contentType)
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? ImportacaoProdutosService.Formato.CSV
+                : ImportacaoProdutosService.Formato.NDJSON;
+        try {
+            return ResponseEntity.ok(importacaoService.importar(corpo, formato, atualizar));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
-    // --- R - Read All (GET) ---
+    // --- R - Read All (GET), paginado ---
+    // Ex: GET /produtos?page=0&size=50&sort=nome,asc (size limitado por spring.data.web.pageable.max-page-size)
+    // If-None-Match com o ETag atual -> 304, sem ler nem serializar o catálogo
     @GetMapping
-    public List<Produto> listarProdutos() {
-        return service.listarProdutos();
+    public ResponseEntity<?> listarProdutos(@PageableDefault(size = 20, sort = "id") Pageable pageable,
+                                            WebRequest request) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarOrdenacao(pageable.getSort(), ProdutoService.CAMPOS_ORDENACAO);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        String etag = service.etagProdutos();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.listarProdutosPaginado(pageable));
+    }
+
+    // --- Paginação por cursor (keyset), em ordem de id ---
+    // Ex: GET /produtos?apos=0&size=100  ->  GET /produtos?apos=<proximoCursor>&size=100
+    @GetMapping(params = "apos")
+    public ResponseEntity<?> listarProdutosApos(@RequestParam Long apos,
+                                                @RequestParam(defaultValue = "20") int size,
+                                                WebRequest request) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarTamanho("size", size, tamanhoMaximoPagina);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        String etag = service.etagProdutos();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.listarProdutosApos(apos, size));
+    }
+
+    // --- R - Read por trecho do nome (GET) ---
+    // Sem distinção de caixa e acento, mais relevantes primeiro, servido do catálogo em memória
+    // Ex: GET /produtos?nome=acucar&limite=10
+    @GetMapping(params = "nome")
+    public ResponseEntity<?> buscarPorNome(@RequestParam String nome,
+                                           @RequestParam(defaultValue = "20") int limite,
+                                           WebRequest request) {
+        Optional<ResponseEntity<?>> erro = Paginacao.validarTamanho("limite", limite, tamanhoMaximoPagina);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        String etag = service.etagProdutos();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.buscarPorNome(nome, limite));
+    }
+
+    // --- Facetas por categoria (GET) ---
+    // Ex: GET /produtos/categorias -> [{categoria, quantidadeProdutos, estoqueTotal, valorEstoque}]
+    @GetMapping("/categorias")
+    public ResponseEntity<List<CategoriaResumoDTO>> resumoPorCategoria(WebRequest request) {
+        String etag = service.etagProdutos();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.resumoPorCategoria());
+    }
+
+    // --- Autocompletar (GET) ---
+    // Ex: GET /produtos/autocomplete?prefix=arr&limite=5
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> autocompletar(@RequestParam String prefix,
+                                           @RequestParam(required = false) Integer limite) {
+        int maximo = service.maximoSugestoes();
+        int quantidade = limite == null ? maximo : limite;
+        if (quantidade < 1 || quantidade > maximo) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "O parâmetro limite deve estar entre 1 e " + maximo + "."));
+        }
+        return ResponseEntity.ok(service.autocompletar(prefix, quantidade));
+    }
+
+    // --- Exportação completa (NDJSON, um produto por linha) ---
+    // Único jeito de obter o catálogo inteiro numa requisição; escrito direto na resposta.
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarProdutos() {
+        List<Produto> produtos = service.listarProdutos();
+        ObjectWriter writer = objectMapper.writer().withRootValueSeparator("\n");
+
+        StreamingResponseBody corpo = saida -> {
+            try (SequenceWriter escritor = writer.writeValues(saida)) {
+                for (Produto produto : produtos) {
+                    escritor.write(produto);
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(corpo);
     }
 
     // --- R - Read One by ID (GET) ---
     @GetMapping("/{id}")
-    public ResponseEntity<Produto> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<Produto> buscarPorId(@PathVariable Long id, WebRequest request) {
+        String etag = service.etagProduto(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         return service.buscarPorId(id)
-                .map(ResponseEntity::ok)
+                .map(produto -> ResponseEntity.ok().eTag(etag).body(produto))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // --- R - Read by Category (GET) ---
     // Exemplo: GET /produtos/search?categoria=Eletronicos
+    // O ETag é o da coleção: qualquer alteração no catálogo muda o resultado possível
     @GetMapping("/search")
-    public List<Produto> buscarPorCategoria(@RequestParam String categoria) {
-        // Supondo que o ProdutoService tenha um método para buscar por Categoria
-        return service.buscarPorCategoria(categoria);
+    public ResponseEntity<List<Produto>> buscarPorCategoria(@RequestParam String categoria, WebRequest request) {
+        String etag = service.etagProdutos();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.buscarPorCategoria(categoria));
     }
 
     // --- U - Update (PUT) ---
@@ -82,7 +226,7 @@ public class ProdutoController {
             // Verifica se o nome foi alterado para um nome que já existe,
             // exceto se for o nome do próprio produto que está sendo atualizado.
             if (!produtoExistente.getNome().equals(produtoAtualizado.getNome()) &&
-                    produtoRepository.existsByNome(produtoAtualizado.getNome())) {
+                    service.existeNome(produtoAtualizado.getNome())) {
 
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
             }
@@ -93,8 +237,12 @@ public class ProdutoController {
             produtoExistente.setPreco(produtoAtualizado.getPreco());
             produtoExistente.setQuantidadeEstoque(produtoAtualizado.getQuantidadeEstoque());
 
-            Produto atualizado = service.atualizarProduto(produtoExistente);
-            return ResponseEntity.ok(atualizado);
+            try {
+                Produto atualizado = service.atualizarProduto(produtoExistente);
+                return ResponseEntity.ok(atualizado);
+            } catch (DataIntegrityViolationException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            }
 
         }).orElse(ResponseEntity.notFound().build());
     }
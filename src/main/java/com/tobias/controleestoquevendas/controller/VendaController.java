@@ -1,42 +1,86 @@
 package com.tobias.controleestoquevendas.controller;
 
+import com.tobias.controleestoquevendas.dto.PaginaCursorDTO;
+import com.tobias.controleestoquevendas.dto.TotalVendasPeriodoDTO;
+import com.tobias.controleestoquevendas.dto.VendaCursor;
+import com.tobias.controleestoquevendas.dto.VendaLoteResultadoDTO;
 import com.tobias.controleestoquevendas.dto.VendaRequestDTO;
 import com.tobias.controleestoquevendas.dto.VendaResponseDTO;
 import com.tobias.controleestoquevendas.exception.EstoqueInsuficienteException;
 import com.tobias.controleestoquevendas.exception.ResourceNotFoundException;
-import com.tobias.controleestoquevendas.model.User;
 import com.tobias.controleestoquevendas.model.Venda;
-import com.tobias.controleestoquevendas.repository.UserRepository;
+import com.tobias.controleestoquevendas.security.CustomUserDetails;
+import com.tobias.controleestoquevendas.service.IdempotenciaVendaService;
+import com.tobias.controleestoquevendas.service.TotalVendasService;
+import com.tobias.controleestoquevendas.service.VendaLoteService;
 import com.tobias.controleestoquevendas.service.VendaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.springframework.data.domain.Pageable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/vendas")
 public class VendaController {
 
+    private static final Logger log = LoggerFactory.getLogger(VendaController.class);
+
     @Autowired
     private VendaService vendaService;
 
     @Autowired
-    UserRepository userRepository;
+    private VendaLoteService vendaLoteService;
+
+    @Autowired
+    private IdempotenciaVendaService idempotenciaVendaService;
+
+    @Autowired
+    private TotalVendasService totalVendasService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${vendas.lote.maximo:5000}")
+    private int maximoVendasPorLote;
+
+    @Value("${vendas.streaming.tamanho-bloco:500}")
+    private int tamanhoBlocoStreaming;
+
+    @Value("${vendas.cursor.tamanho-maximo:100}")
+    private int tamanhoMaximoCursor;
 
     private Map<String, String> formatarErros(BindingResult bindingResult) {
         // Retorna um Map onde a chave é o nome do campo e o valor é a mensagem de erro.
@@ -54,23 +98,95 @@ public class VendaController {
                 ));
     }
 
+    // ---------------------------------------------------------------------
+    // ?fields= : seleção dos campos de cada venda nas listagens.
+    // Ex: GET /vendas?fields=id,dataVenda,valorTotal  (sem "itens", os itens nem são lidos)
+    // ---------------------------------------------------------------------
+    private static Set<String> camposSelecionados(Set<String> fields) {
+        return (fields == null || fields.isEmpty()) ? null : fields;
+    }
+
+    private static boolean pedeItens(Set<String> fields) {
+        Set<String> campos = camposSelecionados(fields);
+        return campos == null || campos.contains("itens");
+    }
+
+    private static Optional<String> campoDesconhecido(Set<String> fields) {
+        Set<String> campos = camposSelecionados(fields);
+        if (campos == null) {
+            return Optional.empty();
+        }
+        return campos.stream()
+                .filter(campo -> !VendaResponseDTO.CAMPOS.contains(campo))
+                .findFirst()
+                .map(campo -> "Campo desconhecido em fields: " + campo + ". Use: "
+                        + String.join(",", VendaResponseDTO.CAMPOS.stream().sorted().toList()));
+    }
+
+    private static Optional<ResponseEntity<?>> validarCampos(Set<String> fields) {
+        return campoDesconhecido(fields)
+                .map(mensagem -> ResponseEntity.badRequest().body(Map.of("error", mensagem)));
+    }
+
+    private static FilterProvider filtroDeCampos(Set<String> fields) {
+        Set<String> campos = camposSelecionados(fields);
+        SimpleBeanPropertyFilter filtro = campos == null
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(campos);
+        return new SimpleFilterProvider().addFilter(VendaResponseDTO.FILTRO_CAMPOS, filtro);
+    }
+
+    private static MappingJacksonValue comCampos(Object corpo, Set<String> fields) {
+        MappingJacksonValue valor = new MappingJacksonValue(corpo);
+        valor.setFilters(filtroDeCampos(fields));
+        return valor;
+    }
+
     // --- C - Create (POST) ---
+    // Header opcional Idempotency-Key: um retry com a mesma chave devolve a venda
+    // original sem criar outra nem baixar o estoque de novo.
+    // A resposta é a mesma VendaResponseDTO das listagens (aceita ?fields=).
     @PostMapping
-    public ResponseEntity<?> criarVenda(@RequestBody @Valid VendaRequestDTO vendaDTO, BindingResult bindingResult) {
+    public ResponseEntity<?> criarVenda(@RequestBody @Valid VendaRequestDTO vendaDTO, BindingResult bindingResult,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia,
+                                        @RequestParam(required = false) Set<String> fields,
+                                        @AuthenticationPrincipal CustomUserDetails usuario) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(formatarErros(bindingResult));
         }
+        Optional<ResponseEntity<?>> erroCampos = validarCampos(fields);
+        if (erroCampos.isPresent()) {
+            return erroCampos.get();
+        }
+        if (chaveIdempotencia != null && (chaveIdempotencia.isBlank() || chaveIdempotencia.length() > 100)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "O header Idempotency-Key deve ter entre 1 e 100 caracteres."));
+        }
+        // ID do usuário logado, vindo do próprio token (sem consulta ao banco)
+        Long vendedorId = usuario.getId();
         try {
-            // Pega o usuário logado a partir do contexto
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-
-            // Busca o ID no banco
-            User user = userRepository.findByUsername(username).orElseThrow();
-            Long vendedorId = user.getId();
-
-            Venda novaVenda = vendaService.criarVenda(vendaDTO, vendedorId);
-            return ResponseEntity.status(HttpStatus.CREATED).body(novaVenda);
+            if (chaveIdempotencia != null) {
+                // Só memória: uma chave nova não custa consulta ao banco; repetidas fora
+                // do cache são pegas pela reserva da chave (catch abaixo)
+                Optional<VendaResponseDTO> vendaOriginal = idempotenciaVendaService.buscarEmCache(chaveIdempotencia, vendedorId);
+                if (vendaOriginal.isPresent()) {
+                    return respostaRepetida(vendaOriginal.get(), fields);
+                }
+            }
+
+            Venda novaVenda = vendaService.criarVenda(vendaDTO, vendedorId, chaveIdempotencia);
+            return ResponseEntity.status(HttpStatus.CREATED).body(comCampos(new VendaResponseDTO(novaVenda), fields));
+        } catch (DataIntegrityViolationException e) {
+            // Outra requisição com a mesma chave gravou primeiro
+            if (chaveIdempotencia != null && vendedorId != null) {
+                Optional<VendaResponseDTO> vendaOriginal = idempotenciaVendaService.buscar(chaveIdempotencia, vendedorId);
+                if (vendaOriginal.isPresent()) {
+                    return respostaRepetida(vendaOriginal.get(), fields);
+                }
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Idempotency-Key já utilizada."));
+            }
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (EstoqueInsuficienteException e) {
             // 2. Captura a exceção específica de estoque
             // Retorna 400 Bad Request com uma mensagem de erro detalhada em JSON
@@ -81,56 +197,198 @@ public class VendaController {
         }
     }
 
+    private ResponseEntity<?> respostaRepetida(VendaResponseDTO vendaOriginal, Set<String> fields) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", "true")
+                .body(comCampos(vendaOriginal, fields));
+    }
+
+    // --- C - Create em lote (POST) ---
+    // Upload de vendas feitas offline pelo PDV. Cada venda tem seu próprio resultado:
+    // uma venda com erro não desfaz as demais.
+    @PostMapping("/lote")
+    public ResponseEntity<?> criarVendasEmLote(@RequestBody List<VendaRequestDTO> vendasDTO,
+                                               @AuthenticationPrincipal CustomUserDetails usuario) {
+        if (vendasDTO == null || vendasDTO.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "O lote deve conter pelo menos uma venda."));
+        }
+        if (vendasDTO.size() > maximoVendasPorLote) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "O lote pode conter no máximo " + maximoVendasPorLote + " vendas."));
+        }
+
+        List<VendaLoteResultadoDTO> resultados = vendaLoteService.criarVendas(vendasDTO, usuario.getId());
+        return ResponseEntity.ok(resultados);
+    }
+
     @GetMapping // Rota base: /vendas?page=0&size=10
-    public Page<VendaResponseDTO> listarTodasVendasPaginado(
+    public ResponseEntity<?> listarTodasVendasPaginado(
             // Define o Pageable: page=0 (página inicial), size=10 (10 itens por página), sort=dataVenda,desc
             @PageableDefault(page = 0, size = 10, sort = "dataVenda", direction = Sort.Direction.DESC)
-            Pageable pageable) {
+            Pageable pageable,
+            @RequestParam(required = false) Set<String> fields) {
 
-        return vendaService.listarTodasVendasPaginado((org.springframework.data.domain.Pageable) pageable);
+        Optional<ResponseEntity<?>> erro = validarCampos(fields);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        Page<VendaResponseDTO> pagina = vendaService.listarTodasVendasPaginado(pageable, pedeItens(fields));
+        return ResponseEntity.ok(comCampos(pagina, fields));
+    }
+
+    // --- Paginação por cursor (keyset) ---
+    // Ativada pelo parâmetro "cursor" (vazio na primeira página); a resposta traz o
+    // proximoCursor. Não há COUNT e o custo não cresce com a profundidade da página.
+    // Ex: GET /vendas?cursor=&size=20  ->  GET /vendas?cursor=<proximoCursor>&size=20
+    @GetMapping(params = "cursor")
+    public ResponseEntity<?> listarTodasVendasPorCursor(@RequestParam String cursor,
+                                                        @RequestParam(defaultValue = "20") int size,
+                                                        @RequestParam(required = false) Set<String> fields) {
+        return paginaPorCursor(cursor, size, fields,
+                (c, tamanho) -> vendaService.listarVendasPorCursor(c, tamanho, pedeItens(fields)));
+    }
+
+    private ResponseEntity<?> paginaPorCursor(String cursor, int size, Set<String> fields,
+                                              BiFunction<VendaCursor, Integer, PaginaCursorDTO<VendaResponseDTO>> listagem) {
+        Optional<ResponseEntity<?>> erro = validarCampos(fields);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        erro = Paginacao.validarTamanho("size", size, tamanhoMaximoCursor);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        VendaCursor posicao;
+        try {
+            posicao = VendaCursor.decodificar(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(comCampos(listagem.apply(posicao, size), fields));
     }
 
     @GetMapping("/periodo")
-    public List<VendaResponseDTO> listarVendasPorPeriodo(
+    public ResponseEntity<?> listarVendasPorPeriodo(
             @RequestParam("dataInicial")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) // Ex: 2025-01-01T00:00:00
             LocalDateTime dataInicial,
 
             @RequestParam("dataFinal")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
-            LocalDateTime dataFinal) {
+            LocalDateTime dataFinal,
+
+            @RequestParam(required = false) Set<String> fields) {
+
+        Optional<ResponseEntity<?>> erro = validarCampos(fields);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        List<VendaResponseDTO> vendas = vendaService.listarVendasPorPeriodo(dataInicial, dataFinal, pedeItens(fields));
+        return ResponseEntity.ok(comCampos(vendas, fields));
+    }
+
+    // Mesmo relatório em NDJSON (uma venda por linha), escrito direto na resposta
+    // à medida que os blocos são lidos: memória constante e primeiro byte cedo.
+    // Ex: GET /vendas/periodo/stream?dataInicial=2025-01-01T00:00:00&dataFinal=2025-01-31T23:59:59
+    @GetMapping(value = "/periodo/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarVendasPorPeriodo(
+            @RequestParam("dataInicial")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime dataInicial,
+
+            @RequestParam("dataFinal")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime dataFinal,
+
+            @RequestParam(required = false) Set<String> fields) throws IOException {
 
-        return vendaService.listarVendasPorPeriodo(dataInicial, dataFinal);
+        Optional<String> erro = campoDesconhecido(fields);
+        if (erro.isPresent()) {
+            byte[] json = objectMapper.writeValueAsBytes(Map.of("error", erro.get()));
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(saida -> saida.write(json));
+        }
+        boolean comItens = pedeItens(fields);
+        ObjectWriter writer = objectMapper.writer(filtroDeCampos(fields)).withRootValueSeparator("\n");
+
+        StreamingResponseBody corpo = saida -> {
+            try (SequenceWriter escritor = writer.writeValues(saida)) {
+                vendaService.percorrerVendasPorPeriodo(dataInicial, dataFinal, tamanhoBlocoStreaming, comItens, bloco -> {
+                    try {
+                        escritor.writeAll(bloco);
+                        escritor.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(corpo);
     }
 
     // ---------------------------------------------------------------------
     // 2. LER SOMENTE VENDAS DO VENDEDOR LOGADO
     // ---------------------------------------------------------------------
     @GetMapping("/meus")
-    public List<Venda> listarMinhasVendas() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        User user = userRepository.findByUsername(username).orElseThrow();
-        return vendaService.listarVendasPorVendedor(user.getId());
+    public ResponseEntity<?> listarMinhasVendas(@RequestParam(required = false) Set<String> fields,
+                                                @AuthenticationPrincipal CustomUserDetails usuario) {
+        Optional<ResponseEntity<?>> erro = validarCampos(fields);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        List<VendaResponseDTO> vendas = vendaService.listarVendasPorVendedor(usuario.getId(), pedeItens(fields));
+        return ResponseEntity.ok(comCampos(vendas, fields));
     }
 
 
+    @GetMapping(value = "/meus", params = "cursor")
+    public ResponseEntity<?> listarMinhasVendasPorCursor(@RequestParam String cursor,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         @RequestParam(required = false) Set<String> fields,
+                                                         @AuthenticationPrincipal CustomUserDetails usuario) {
+        return paginaPorCursor(cursor, size, fields,
+                (c, tamanho) -> vendaService.listarVendasPorVendedorPorCursor(usuario.getId(), c, tamanho, pedeItens(fields)));
+    }
+
     // ---------------------------------------------------------------------
     // 3. LER VENDAS DE UM CLIENTE ESPECÍFICO
     // ---------------------------------------------------------------------
     @GetMapping("/cliente/{clienteId}")
-    public List<VendaResponseDTO> listarVendasPorCliente(@PathVariable Long clienteId) {
+    public ResponseEntity<?> listarVendasPorCliente(@PathVariable Long clienteId,
+                                                    @RequestParam(required = false) Set<String> fields) {
+
+        Optional<ResponseEntity<?>> erro = validarCampos(fields);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
+        List<VendaResponseDTO> vendas = vendaService.listarVendasPorCliente(clienteId, pedeItens(fields));
+        return ResponseEntity.ok(comCampos(vendas, fields));
 
-        List<VendaResponseDTO> vendas = vendaService.listarVendasPorCliente(clienteId);
-        return vendaService.listarVendasPorCliente(clienteId);
+    }
 
+    @GetMapping(value = "/cliente/{clienteId}", params = "cursor")
+    public ResponseEntity<?> listarVendasPorClientePorCursor(@PathVariable Long clienteId,
+                                                             @RequestParam String cursor,
+                                                             @RequestParam(defaultValue = "20") int size,
+                                                             @RequestParam(required = false) Set<String> fields) {
+        return paginaPorCursor(cursor, size, fields,
+                (c, tamanho) -> vendaService.listarVendasPorClientePorCursor(clienteId, c, tamanho, pedeItens(fields)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<VendaResponseDTO> buscarVendaPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarVendaPorId(@PathVariable Long id,
+                                              @RequestParam(required = false) Set<String> fields) {
+        Optional<ResponseEntity<?>> erro = validarCampos(fields);
+        if (erro.isPresent()) {
+            return erro.get();
+        }
         try {
             VendaResponseDTO vendaDTO = vendaService.buscarVendaPorId(id);
-            return ResponseEntity.ok(vendaDTO);
+            return ResponseEntity.ok(comCampos(vendaDTO, fields));
 
         } catch (ResourceNotFoundException e) {
             // Se a venda não for encontrada, retorna 404 Not Found
@@ -142,15 +400,29 @@ public class VendaController {
     // 4. VALOR TOTAL DAS VENDAS DO VENDEDOR LOGADO
     // ---------------------------------------------------------------------
     @GetMapping("/total/meu")
-    public ResponseEntity<BigDecimal> valorTotalMinhasVendas() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        User user = userRepository.findByUsername(username).orElseThrow();
-
-        BigDecimal total = vendaService.calcularValorTotalVendasPorVendedor(user.getId());
+    public ResponseEntity<BigDecimal> valorTotalMinhasVendas(@AuthenticationPrincipal CustomUserDetails usuario) {
+        BigDecimal total = vendaService.calcularValorTotalVendasPorVendedor(usuario.getId());
         return ResponseEntity.ok(total);
     }
 
+    // Ex: GET /vendas/total/meu/diario?dataInicial=2025-01-01&dataFinal=2025-01-31
+    @GetMapping("/total/meu/diario")
+    public List<TotalVendasPeriodoDTO> totaisDiariosMinhasVendas(
+            @RequestParam("dataInicial") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicial,
+            @RequestParam("dataFinal") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFinal,
+            @AuthenticationPrincipal CustomUserDetails usuario) {
+        return totalVendasService.totaisDiarios(usuario.getId(), dataInicial, dataFinal);
+    }
+
+    // Ex: GET /vendas/total/meu/mensal?dataInicial=2025-01-01&dataFinal=2025-12-31
+    @GetMapping("/total/meu/mensal")
+    public List<TotalVendasPeriodoDTO> totaisMensaisMinhasVendas(
+            @RequestParam("dataInicial") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicial,
+            @RequestParam("dataFinal") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFinal,
+            @AuthenticationPrincipal CustomUserDetails usuario) {
+        return totalVendasService.totaisMensais(usuario.getId(), dataInicial, dataFinal);
+    }
+
 
     // ---------------------------------------------------------------------
     // 5. ATUALIZAR UMA VENDA
@@ -159,19 +431,20 @@ public class VendaController {
     public ResponseEntity<?> atualizarVenda(
             @PathVariable Long id,
             @RequestBody @Valid VendaRequestDTO vendaDTO,
-            BindingResult bindingResult
+            BindingResult bindingResult,
+            @RequestParam(required = false) Set<String> fields,
+            @AuthenticationPrincipal CustomUserDetails usuario
     ) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(formatarErros(bindingResult));
         }
+        Optional<ResponseEntity<?>> erroCampos = validarCampos(fields);
+        if (erroCampos.isPresent()) {
+            return erroCampos.get();
+        }
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            // Assumindo que o UserRepository está injetado e User model tem o ID
-            User user = userRepository.findByUsername(username).orElseThrow();
-
-            Venda vendaAtualizada = vendaService.atualizarVenda(id, vendaDTO, user.getId());
-            return ResponseEntity.ok(vendaAtualizada);
+            Venda vendaAtualizada = vendaService.atualizarVenda(id, vendaDTO, usuario.getId());
+            return ResponseEntity.ok(comCampos(new VendaResponseDTO(vendaAtualizada), fields));
 
         } catch (ResourceNotFoundException e) {
             // Trata Venda, Cliente ou Produto não encontrado (404)
@@ -185,7 +458,7 @@ public class VendaController {
         } catch (Exception e) {
             // ✅ CORREÇÃO: Captura a exceção desconhecida e retorna o corpo JSON
             // Retorna a mensagem da exceção, que revelará o erro real
-            e.printStackTrace(); // Mantenha isso para debug no console
+            log.error("Falha na atualização da venda {}", id, e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "Falha na atualização da venda: " + e.getMessage()));
         }
@@ -0,0 +1,19 @@
+package com.tobias.controleestoquevendas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Faceta de uma categoria: quantos produtos, unidades em estoque e valor do estoque (preço x quantidade)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoriaResumoDTO {
+
+    private String categoria;
+    private long quantidadeProdutos;
+    private long estoqueTotal;
+    private BigDecimal valorEstoque;
+}
@@ -0,0 +1,32 @@
+package com.tobias.controleestoquevendas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Resumo de POST /produtos/importacao; "erros" traz no máximo produtos.importacao.maximo-erros linhas
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoProdutosResultadoDTO {
+
+    private long linhasProcessadas;
+    private long inseridos;
+    private long atualizados;
+    private long rejeitados;
+    private List<ErroLinha> erros = new ArrayList<>();
+    private boolean errosTruncados;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErroLinha {
+
+        private long linha;
+        private String nome;
+        private String erro;
+    }
+}
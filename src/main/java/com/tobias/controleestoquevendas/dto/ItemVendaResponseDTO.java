@@ -0,0 +1,25 @@
+package com.tobias.controleestoquevendas.dto;
+
+import com.tobias.controleestoquevendas.model.VendaProduto;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Item de venda na resposta: só o necessário, sem o Produto inteiro
+@Data
+@NoArgsConstructor
+public class ItemVendaResponseDTO {
+
+    private Long produtoId;
+    private String produtoNome;
+    private Integer quantidade;
+    private BigDecimal precoUnitario;
+
+    public ItemVendaResponseDTO(VendaProduto item) {
+        this.produtoId = item.getProduto().getId();
+        this.produtoNome = item.getProduto().getNome();
+        this.quantidade = item.getQuantidade();
+        this.precoUnitario = item.getPrecoUnitario();
+    }
+}
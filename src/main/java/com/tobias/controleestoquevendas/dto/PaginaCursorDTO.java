@@ -0,0 +1,38 @@
+package com.tobias.controleestoquevendas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Página de uma listagem por cursor (keyset). proximoCursor == null indica a última página.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDTO<T> {
+
+    private List<T> conteudo;
+    private int tamanho;
+    private String proximoCursor;
+
+    // Página montada a partir de até tamanho + 1 linhas lidas em ordem de cursor:
+    // a linha extra só indica se existe próxima página e não é devolvida.
+    public static <T> PaginaCursorDTO<T> deLinhas(List<T> linhas, int tamanho, Function<T, String> cursor) {
+        if (linhas.size() <= tamanho) {
+            return new PaginaCursorDTO<>(linhas, linhas.size(), null);
+        }
+        List<T> conteudo = linhas.subList(0, tamanho);
+        return new PaginaCursorDTO<>(conteudo, tamanho, cursor.apply(conteudo.get(tamanho - 1)));
+    }
+
+    // Keyset por id (?apos=): o cursor é o id do último item
+    public static <T> PaginaCursorDTO<T> porId(List<T> linhas, int tamanho, Function<T, Long> id) {
+        return deLinhas(linhas, tamanho, ultimo -> String.valueOf(id.apply(ultimo)));
+    }
+
+    public <R> PaginaCursorDTO<R> map(Function<T, R> conversao) {
+        return new PaginaCursorDTO<>(conteudo.stream().map(conversao).toList(), tamanho, proximoCursor);
+    }
+}
@@ -0,0 +1,8 @@
+package com.tobias.controleestoquevendas.dto;
+import jakarta.validation.constraints.NotBlank;
+
+public class RevogarTokenRequest {
+
+    @NotBlank(message = "O token é obrigatório.")
+    public String token;
+}
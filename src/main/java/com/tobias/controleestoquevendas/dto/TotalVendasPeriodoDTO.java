@@ -0,0 +1,18 @@
+package com.tobias.controleestoquevendas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Total de vendas de um período (dia "2025-01-31" ou mês "2025-01")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotalVendasPeriodoDTO {
+
+    private String periodo;
+    private long quantidadeVendas;
+    private BigDecimal valorTotal;
+}
@@ -0,0 +1,34 @@
+package com.tobias.controleestoquevendas.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Posição numa listagem de vendas ordenada por (dataVenda DESC, id DESC).
+// Vai para o cliente como texto opaco (Base64 URL de "dataVenda|id").
+public record VendaCursor(LocalDateTime dataVenda, Long id) {
+
+    // Antes da primeira venda da listagem (maior que qualquer data válida no MySQL)
+    public static final VendaCursor INICIO = new VendaCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public String codificar() {
+        String valor = dataVenda + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cursor vazio = primeira página. Lança IllegalArgumentException se o texto for inválido.
+    public static VendaCursor decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return INICIO;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new VendaCursor(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.tobias.controleestoquevendas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de uma venda dentro de POST /vendas/lote (mesma ordem do envio)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaLoteResultadoDTO {
+
+    private int indice;
+    private boolean sucesso;
+    private Long vendaId;
+    private String erro;
+
+    public static VendaLoteResultadoDTO criada(int indice, Long vendaId) {
+        return new VendaLoteResultadoDTO(indice, true, vendaId, null);
+    }
+
+    public static VendaLoteResultadoDTO falha(int indice, String erro) {
+        return new VendaLoteResultadoDTO(indice, false, null, erro);
+    }
+}
@@ -1,15 +1,24 @@
 package com.tobias.controleestoquevendas.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.tobias.controleestoquevendas.model.Venda;
-import com.tobias.controleestoquevendas.model.VendaProduto;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import lombok.*;
 
+// Filtro de campos do ?fields= (sem filtro na requisição, todos os campos saem)
+@JsonFilter(VendaResponseDTO.FILTRO_CAMPOS)
 @Data
 public class VendaResponseDTO {
 
+    public static final String FILTRO_CAMPOS = "camposVenda";
+
+    // Nomes aceitos no ?fields=
+    public static final Set<String> CAMPOS = Set.of(
+            "id", "dataVenda", "valorTotal", "vendedorId", "vendedorNome", "clienteId", "clienteNome", "itens");
+
     private Long id;
     private LocalDateTime dataVenda;
     private BigDecimal valorTotal;
@@ -21,17 +30,23 @@ public class VendaResponseDTO {
     private String clienteNome;
     // FIM CAMPOS ADICIONADOS
 
-    // Você pode criar um DTO separado para os itens de venda se quiser simplificar,
-    // mas por enquanto, manteremos o VendaProduto simplificado se não tiver loops.
-    private List<VendaProduto> itens;
+    // Itens enxutos (id e nome do produto, quantidade, preço unitário)
+    private List<ItemVendaResponseDTO> itens;
 
     // Construtor, Getters e Setters
 
     public VendaResponseDTO(Venda venda) {
+        this(venda, true);
+    }
+
+    // comItens = false: os itens não são lidos (nem inicializados) e saem como null
+    public VendaResponseDTO(Venda venda, boolean comItens) {
         this.id = venda.getId();
         this.dataVenda = venda.getDataVenda();
         this.valorTotal = venda.getValorTotal();
-        this.itens = venda.getItens();
+        if (comItens && venda.getItens() != null) {
+            this.itens = venda.getItens().stream().map(ItemVendaResponseDTO::new).toList();
+        }
 
         // Carrega dados do Vendedor (User)
         if (venda.getVendedor() != null) {
@@ -0,0 +1,10 @@
+package com.tobias.controleestoquevendas.exception;
+
+import io.jsonwebtoken.JwtException;
+
+// Token com assinatura válida, mas revogado (logout / revogação pelo gerente)
+public class TokenRevogadoException extends JwtException {
+    public TokenRevogadoException(String message) {
+        super(message);
+    }
+}
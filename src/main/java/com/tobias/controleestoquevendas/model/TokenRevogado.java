@@ -0,0 +1,30 @@
+package com.tobias.controleestoquevendas.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Token JWT revogado (logout ou revogação pelo gerente) até a sua expiração.
+// Guarda só o SHA-256 do token, nunca o token.
+@Entity
+@Table(name = "tokens_revogados")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevogado {
+
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    @Column(length = 100)
+    private String username;
+
+    // Depois disso o token já é recusado por estar expirado e a linha pode sair
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Column(name = "revogado_em", nullable = false)
+    private LocalDateTime revogadoEm = LocalDateTime.now();
+}
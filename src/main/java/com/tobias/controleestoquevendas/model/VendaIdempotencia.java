@@ -0,0 +1,25 @@
+package com.tobias.controleestoquevendas.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Registro do header Idempotency-Key do POST /vendas: chave -> venda criada
+@Entity
+@Table(name = "vendas_idempotencia")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaIdempotencia {
+
+    @EmbeddedId
+    private VendaIdempotenciaId id;
+
+    // Nulo enquanto a venda da chave ainda está sendo criada (mesma transação)
+    @Column(name = "venda_id")
+    private Long vendaId;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm = LocalDateTime.now();
+}
@@ -0,0 +1,21 @@
+package com.tobias.controleestoquevendas.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaIdempotenciaId implements Serializable {
+
+    // A mesma chave pode ser usada por vendedores diferentes
+    @Column(name = "vendedor_id")
+    private Long vendedorId;
+
+    @Column(name = "chave", length = 100)
+    private String chave;
+}
@@ -1,6 +1,7 @@
 package com.tobias.controleestoquevendas.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
@@ -37,4 +38,10 @@ public class VendaProduto {
 
     @Column(name = "preco_unitario", nullable = false, precision = 10, scale = 2)
     private BigDecimal precoUnitario; // Mapeia o campo 'preco_unitario'
+
+    // false = a baixa deste item ainda não foi gravada em produtos.quantidade_estoque
+    // (reserva feita pelo EstoqueLedger, aplicada depois em lote)
+    @Column(name = "estoque_aplicado", nullable = false)
+    @JsonIgnore
+    private boolean estoqueAplicado = true;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.tobias.controleestoquevendas.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// Total de vendas por vendedor e por dia, mantido junto com cada criação,
+// edição e exclusão de venda (mesma transação). Evita somar a tabela vendas.
+@Entity
+@Table(name = "vendas_totais_vendedor")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaTotalVendedor {
+
+    @EmbeddedId
+    private VendaTotalVendedorId id;
+
+    @Column(name = "quantidade_vendas", nullable = false)
+    private Long quantidadeVendas;
+
+    @Column(name = "valor_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal valorTotal;
+}
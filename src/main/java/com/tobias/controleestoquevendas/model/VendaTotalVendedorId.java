@@ -0,0 +1,21 @@
+package com.tobias.controleestoquevendas.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaTotalVendedorId implements Serializable {
+
+    @Column(name = "vendedor_id")
+    private Long vendedorId;
+
+    @Column(name = "dia")
+    private LocalDate dia;
+}
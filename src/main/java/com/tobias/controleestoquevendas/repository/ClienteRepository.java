@@ -1,7 +1,9 @@
 package com.tobias.controleestoquevendas.repository;
 
 import com.tobias.controleestoquevendas.model.Cliente;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +13,11 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     List<Cliente> findByNomeContainingIgnoreCase(String nome);
 
     boolean existsByCpf(String cpf);
+
+    // Só a coluna (carga do filtro de existência)
+    @Query("SELECT c.cpf FROM Cliente c")
+    List<String> findTodosCpfs();
+
+    // Keyset por id (listagem ?apos= e exportação em blocos); o Pageable só limita as linhas
+    List<Cliente> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limite);
 }
@@ -2,13 +2,45 @@ package com.tobias.controleestoquevendas.repository;
 
 import com.tobias.controleestoquevendas.model.Produto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     List<Produto> findByNomeContainingIgnoreCase(String nome);
     List<Produto> findByCategoria(String categoria);
     boolean existsByNome(String nome);
+
+    // Só a coluna (carga do filtro de existência)
+    @Query("SELECT p.nome FROM Produto p")
+    List<String> findTodosNomes();
+
+    // Baixa condicional e atômica: só retira se houver estoque suficiente.
+    // Retorna o número de linhas afetadas (0 = estoque insuficiente ou produto inexistente).
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque - :quantidade " +
+            "WHERE p.id = :id AND p.quantidadeEstoque >= :quantidade")
+    int baixarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Devolve quantidade ao estoque sem precisar ler o produto antes.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque + :quantidade WHERE p.id = :id")
+    int devolverEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Baixa sem condição: usada pelo EstoqueLedger, que já conferiu o saldo em memória.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque - :quantidade WHERE p.id = :id")
+    int aplicarBaixa(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    @Query("SELECT p.quantidadeEstoque FROM Produto p WHERE p.id = :id")
+    Optional<Integer> findQuantidadeEstoque(@Param("id") Long id);
+
+    // [id, quantidade_estoque] de todos os produtos (carga dos contadores do EstoqueLedger)
+    @Query("SELECT p.id, p.quantidadeEstoque FROM Produto p")
+    List<Object[]> findQuantidadesEstoque();
 }
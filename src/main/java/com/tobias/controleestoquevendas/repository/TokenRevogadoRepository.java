@@ -0,0 +1,21 @@
+package com.tobias.controleestoquevendas.repository;
+
+import com.tobias.controleestoquevendas.model.TokenRevogado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TokenRevogadoRepository extends JpaRepository<TokenRevogado, String> {
+
+    // Digests ainda relevantes (token não expirado) para montar o filtro em memória
+    @Query("SELECT t.digest FROM TokenRevogado t WHERE t.expiraEm > :agora")
+    List<String> findDigestsAtivos(@Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("DELETE FROM TokenRevogado t WHERE t.expiraEm <= :agora")
+    int deleteExpirados(@Param("agora") LocalDateTime agora);
+}
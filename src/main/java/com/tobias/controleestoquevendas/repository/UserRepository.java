@@ -1,13 +1,23 @@
 package com.tobias.controleestoquevendas.repository;
 
 import com.tobias.controleestoquevendas.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    // Só a coluna (carga do filtro de existência)
+    @Query("SELECT u.username FROM User u")
+    List<String> findTodosUsernames();
+
+    // Keyset por id (listagem ?apos=); o Pageable só limita as linhas
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limite);
 }
 
 
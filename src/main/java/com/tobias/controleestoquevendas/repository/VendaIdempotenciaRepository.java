@@ -0,0 +1,42 @@
+package com.tobias.controleestoquevendas.repository;
+
+import com.tobias.controleestoquevendas.model.VendaIdempotencia;
+import com.tobias.controleestoquevendas.model.VendaIdempotenciaId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface VendaIdempotenciaRepository extends JpaRepository<VendaIdempotencia, VendaIdempotenciaId> {
+
+    // INSERT puro (save faria merge/UPDATE): uma chave repetida falha na chave primária
+    @Modifying
+    @Query(value = "INSERT INTO vendas_idempotencia (vendedor_id, chave, criado_em) " +
+            "VALUES (:vendedorId, :chave, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int reservar(@Param("vendedorId") Long vendedorId, @Param("chave") String chave);
+
+    // Só chaves concluídas e ainda dentro do TTL (a limpeza periódica pode não ter rodado)
+    @Query("SELECT i FROM VendaIdempotencia i WHERE i.id.vendedorId = :vendedorId AND i.id.chave = :chave " +
+            "AND i.vendaId IS NOT NULL AND i.criadoEm > :limite")
+    Optional<VendaIdempotencia> findValida(@Param("vendedorId") Long vendedorId, @Param("chave") String chave,
+                                           @Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("UPDATE VendaIdempotencia i SET i.vendaId = :vendaId " +
+            "WHERE i.id.vendedorId = :vendedorId AND i.id.chave = :chave")
+    int concluir(@Param("vendedorId") Long vendedorId, @Param("chave") String chave, @Param("vendaId") Long vendaId);
+
+    // Libera uma chave expirada que a limpeza periódica ainda não removeu
+    @Modifying
+    @Query("DELETE FROM VendaIdempotencia i WHERE i.id.vendedorId = :vendedorId AND i.id.chave = :chave " +
+            "AND i.criadoEm <= :limite")
+    int removerSeExpirada(@Param("vendedorId") Long vendedorId, @Param("chave") String chave,
+                          @Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("DELETE FROM VendaIdempotencia i WHERE i.criadoEm < :limite")
+    int deleteByCriadoEmBefore(@Param("limite") LocalDateTime limite);
+}
@@ -3,6 +3,56 @@ package com.tobias.controleestoquevendas.repository;
 import com.tobias.controleestoquevendas.model.VendaProduto;
 import com.tobias.controleestoquevendas.model.VendaProdutoId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface VendaProdutoRepository extends JpaRepository<VendaProduto, VendaProdutoId> {
-}
\ No newline at end of file
+
+    // ---------------------------------------------------------------------
+    // Baixas pendentes do ledger de estoque (estoque_aplicado = false)
+    // ---------------------------------------------------------------------
+
+    @Query("SELECT DISTINCT vp.id.produtoId FROM VendaProduto vp WHERE vp.estoqueAplicado = false")
+    List<Long> findProdutosComBaixaPendente();
+
+    @Query("SELECT COALESCE(SUM(vp.quantidade), 0) FROM VendaProduto vp " +
+            "WHERE vp.id.produtoId = :produtoId AND vp.estoqueAplicado = false")
+    Long somarBaixasPendentes(@Param("produtoId") Long produtoId);
+
+    // [produto_id, soma das baixas pendentes]
+    @Query("SELECT vp.id.produtoId, SUM(vp.quantidade) FROM VendaProduto vp " +
+            "WHERE vp.estoqueAplicado = false GROUP BY vp.id.produtoId")
+    List<Object[]> somarBaixasPendentesPorProduto();
+
+    // Trava as linhas pendentes do produto: [venda_id, quantidade]
+    @Query(value = "SELECT venda_id, quantidade FROM venda_produto " +
+            "WHERE produto_id = :produtoId AND estoque_aplicado = FALSE FOR UPDATE", nativeQuery = true)
+    List<Object[]> travarBaixasPendentes(@Param("produtoId") Long produtoId);
+
+    // Trava as linhas pendentes da venda: [produto_id, quantidade]
+    @Query(value = "SELECT produto_id, quantidade FROM venda_produto " +
+            "WHERE venda_id = :vendaId AND estoque_aplicado = FALSE FOR UPDATE", nativeQuery = true)
+    List<Object[]> travarBaixasPendentesDaVenda(@Param("vendaId") Long vendaId);
+
+    @Modifying
+    @Query("UPDATE VendaProduto vp SET vp.estoqueAplicado = true " +
+            "WHERE vp.id.produtoId = :produtoId AND vp.id.vendaId IN :vendaIds")
+    int marcarEstoqueAplicado(@Param("produtoId") Long produtoId, @Param("vendaIds") Collection<Long> vendaIds);
+
+    @Modifying
+    @Query("UPDATE VendaProduto vp SET vp.estoqueAplicado = true WHERE vp.id.vendaId = :vendaId")
+    int marcarEstoqueAplicadoDaVenda(@Param("vendaId") Long vendaId);
+
+    // ---------------------------------------------------------------------
+    // Volume vendido por produto desde uma data: [produto_id, quantidade]
+    // (ranking do autocompletar; usa idx_vendas_data)
+    // ---------------------------------------------------------------------
+    @Query("SELECT vp.id.produtoId, SUM(vp.quantidade) FROM VendaProduto vp " +
+            "WHERE vp.venda.dataVenda >= :desde GROUP BY vp.id.produtoId")
+    List<Object[]> somarQuantidadesVendidasDesde(@Param("desde") LocalDateTime desde);
+}
@@ -1,12 +1,18 @@
 package com.tobias.controleestoquevendas.repository;
 
 import com.tobias.controleestoquevendas.model.Venda;
+import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface VendaRepository extends JpaRepository<Venda, Long> {
@@ -19,4 +25,73 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
     List<Venda> findByClienteId(Long clienteId);
 
     List<Venda> findByDataVendaBetween(LocalDateTime dataInicial, LocalDateTime dataFinal);
+
+    // ---------------------------------------------------------------------
+    // Leituras usadas nas respostas de venda (VendaResponseDTO / /vendas/meus).
+    // Cliente e vendedor vêm no mesmo SELECT da venda; itens e produtos numa única
+    // consulta extra (carregarItens). Sem isso, cada venda da página dispara selects
+    // próprios para cliente, vendedor, itens e produtos (N+1).
+    // ---------------------------------------------------------------------
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
+    @Query(value = "SELECT v FROM Venda v", countQuery = "SELECT COUNT(v) FROM Venda v")
+    Page<Venda> findPaginaComClienteEVendedor(Pageable pageable);
+
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor " +
+            "WHERE v.dataVenda BETWEEN :dataInicial AND :dataFinal")
+    List<Venda> findPorPeriodoComClienteEVendedor(@Param("dataInicial") LocalDateTime dataInicial,
+                                                  @Param("dataFinal") LocalDateTime dataFinal);
+
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor WHERE v.vendedor.id = :vendedorId")
+    List<Venda> findPorVendedorComClienteEVendedor(@Param("vendedorId") Long vendedorId);
+
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor WHERE v.cliente.id = :clienteId")
+    List<Venda> findPorClienteComClienteEVendedor(@Param("clienteId") Long clienteId);
+
+    // Venda única: tudo num SELECT só
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor " +
+            "LEFT JOIN FETCH v.itens i LEFT JOIN FETCH i.produto WHERE v.id = :id")
+    Optional<Venda> findCompletaById(@Param("id") Long id);
+
+    // Próximo bloco do período em ordem (dataVenda, id), depois do cursor (ultimaData, ultimoId).
+    // Paginação por chave (seek): o custo não cresce com a posição no período.
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor " +
+            "WHERE v.dataVenda BETWEEN :dataInicial AND :dataFinal " +
+            "AND (v.dataVenda > :ultimaData OR (v.dataVenda = :ultimaData AND v.id > :ultimoId)) " +
+            "ORDER BY v.dataVenda, v.id")
+    List<Venda> findBlocoPorPeriodo(@Param("dataInicial") LocalDateTime dataInicial,
+                                    @Param("dataFinal") LocalDateTime dataFinal,
+                                    @Param("ultimaData") LocalDateTime ultimaData,
+                                    @Param("ultimoId") Long ultimoId,
+                                    Pageable limite);
+
+    // ---------------------------------------------------------------------
+    // Listagens por cursor (keyset) em ordem (dataVenda DESC, id DESC):
+    // só as vendas "antes" do cursor, sem OFFSET e sem COUNT.
+    // O "dataVenda <= :data" é redundante, mas é ele que o MySQL usa como faixa no
+    // índice (data_venda, id); só com o OR a consulta pode virar varredura.
+    // ---------------------------------------------------------------------
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor " +
+            "WHERE v.dataVenda <= :data AND (v.dataVenda < :data OR (v.dataVenda = :data AND v.id < :id)) " +
+            "ORDER BY v.dataVenda DESC, v.id DESC")
+    List<Venda> findAntesDoCursor(@Param("data") LocalDateTime data, @Param("id") Long id, Pageable limite);
+
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor " +
+            "WHERE v.vendedor.id = :vendedorId " +
+            "AND v.dataVenda <= :data AND (v.dataVenda < :data OR (v.dataVenda = :data AND v.id < :id)) " +
+            "ORDER BY v.dataVenda DESC, v.id DESC")
+    List<Venda> findPorVendedorAntesDoCursor(@Param("vendedorId") Long vendedorId,
+                                             @Param("data") LocalDateTime data, @Param("id") Long id,
+                                             Pageable limite);
+
+    @Query("SELECT v FROM Venda v JOIN FETCH v.cliente JOIN FETCH v.vendedor " +
+            "WHERE v.cliente.id = :clienteId " +
+            "AND v.dataVenda <= :data AND (v.dataVenda < :data OR (v.dataVenda = :data AND v.id < :id)) " +
+            "ORDER BY v.dataVenda DESC, v.id DESC")
+    List<Venda> findPorClienteAntesDoCursor(@Param("clienteId") Long clienteId,
+                                            @Param("data") LocalDateTime data, @Param("id") Long id,
+                                            Pageable limite);
+
+    // Inicializa os itens (e produtos) de várias vendas já carregadas com uma única consulta
+    @Query("SELECT DISTINCT v FROM Venda v LEFT JOIN FETCH v.itens i LEFT JOIN FETCH i.produto WHERE v.id IN :ids")
+    List<Venda> carregarItens(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.tobias.controleestoquevendas.repository;
+
+import com.tobias.controleestoquevendas.model.VendaTotalVendedor;
+import com.tobias.controleestoquevendas.model.VendaTotalVendedorId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface VendaTotalVendedorRepository extends JpaRepository<VendaTotalVendedor, VendaTotalVendedorId> {
+
+    // Soma (ou subtrai, com valores negativos) no total do dia, criando a linha se preciso
+    @Modifying
+    @Query(value = "INSERT INTO vendas_totais_vendedor (vendedor_id, dia, quantidade_vendas, valor_total) " +
+            "VALUES (:vendedorId, :dia, :quantidade, :valor) " +
+            "ON DUPLICATE KEY UPDATE quantidade_vendas = quantidade_vendas + :quantidade, " +
+            "valor_total = valor_total + :valor", nativeQuery = true)
+    int acumular(@Param("vendedorId") Long vendedorId, @Param("dia") LocalDate dia,
+                 @Param("quantidade") long quantidade, @Param("valor") BigDecimal valor);
+
+    @Query("SELECT COALESCE(SUM(t.valorTotal), 0) FROM VendaTotalVendedor t WHERE t.id.vendedorId = :vendedorId")
+    BigDecimal somarValorTotal(@Param("vendedorId") Long vendedorId);
+
+    @Query("SELECT t FROM VendaTotalVendedor t WHERE t.id.vendedorId = :vendedorId " +
+            "AND t.id.dia BETWEEN :dataInicial AND :dataFinal ORDER BY t.id.dia")
+    List<VendaTotalVendedor> findPorPeriodo(@Param("vendedorId") Long vendedorId,
+                                            @Param("dataInicial") LocalDate dataInicial,
+                                            @Param("dataFinal") LocalDate dataFinal);
+}
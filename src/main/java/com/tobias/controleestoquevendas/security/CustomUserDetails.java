@@ -20,6 +20,11 @@ public class CustomUserDetails implements UserDetails {
         return user.getId();
     }
 
+    // GERENTE ou VENDEDOR
+    public String getRole() {
+        return user.getRole();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         // Assume que a ROLE já tem o prefixo ROLE_
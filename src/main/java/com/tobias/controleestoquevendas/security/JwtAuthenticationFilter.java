@@ -1,43 +1,110 @@
 package com.tobias.controleestoquevendas.security;
 
+import com.tobias.controleestoquevendas.exception.TokenRevogadoException;
 import com.tobias.controleestoquevendas.service.TokenService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Map;
 
+// ==============================================
+// Autenticação por token (header "Auth").
+// Métricas (GET /actuator/prometheus ou /actuator/metrics/...):
+//   seguranca.token.verificacao{resultado=sucesso|falha}  -> tempo de verificação do token
+//   seguranca.autenticacao.falhas{motivo=...}             -> tokens rejeitados
+// Token inválido não interrompe a requisição: ela segue sem autenticação e
+// o CustomAuthenticationEntryPoint responde 401 se a rota exigir login.
+// ==============================================
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     private final TokenService tokenService;
+    private final MeterRegistry meterRegistry;
+    private final Timer verificacaoSucesso;
+    private final Timer verificacaoFalha;
+    private final Map<String, Counter> falhasPorMotivo;
 
-    public JwtAuthenticationFilter(TokenService tokenService) {
+    public JwtAuthenticationFilter(TokenService tokenService, MeterRegistry meterRegistry) {
         this.tokenService = tokenService;
+        this.meterRegistry = meterRegistry;
+        this.verificacaoSucesso = timerVerificacao("sucesso");
+        this.verificacaoFalha = timerVerificacao("falha");
+        this.falhasPorMotivo = Map.of(
+                "expirado", contadorFalhas("expirado"),
+                "revogado", contadorFalhas("revogado"),
+                "assinatura", contadorFalhas("assinatura"),
+                "malformado", contadorFalhas("malformado"),
+                "invalido", contadorFalhas("invalido"));
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        System.out.println("Interceptando request: " + request.getRequestURI());
-
         String header = request.getHeader("Auth");
         if (header != null) {
             String token = header;
-            Authentication auth = tokenService.getAuthentication(token);
-            if (auth != null) {
+            Timer.Sample inicio = Timer.start(meterRegistry);
+            try {
+                Authentication auth = tokenService.getAuthentication(token);
+                inicio.stop(verificacaoSucesso);
                 SecurityContextHolder.getContext().setAuthentication(auth);
-                System.out.println("Usuário autenticado: " + auth.getName() +
-                        " | Roles: " + auth.getAuthorities());
+                log.debug("Usuário autenticado: {} | Roles: {} | {} {}",
+                        auth.getName(), auth.getAuthorities(), request.getMethod(), request.getRequestURI());
+            } catch (JwtException | IllegalArgumentException e) {
+                inicio.stop(verificacaoFalha);
+                falhasPorMotivo.get(motivo(e)).increment();
+                log.debug("Token rejeitado em {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private static String motivo(RuntimeException e) {
+        if (e instanceof ExpiredJwtException) {
+            return "expirado";
+        }
+        if (e instanceof TokenRevogadoException) {
+            return "revogado";
+        }
+        if (e instanceof io.jsonwebtoken.security.SecurityException) {
+            return "assinatura";
+        }
+        if (e instanceof MalformedJwtException) {
+            return "malformado";
+        }
+        return "invalido";
+    }
+
+    private Timer timerVerificacao(String resultado) {
+        return Timer.builder("seguranca.token.verificacao")
+                .description("Tempo de verificação do token JWT (inclui o cache do TokenService)")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private Counter contadorFalhas(String motivo) {
+        return Counter.builder("seguranca.autenticacao.falhas")
+                .description("Tokens rejeitados pelo filtro de autenticação")
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
 }
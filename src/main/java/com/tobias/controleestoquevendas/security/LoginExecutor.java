@@ -0,0 +1,68 @@
+package com.tobias.controleestoquevendas.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// ==============================================
+// POOL PRÓPRIO PARA LOGIN / REGISTRO (BCrypt)
+//
+// O hash de senha é caro de propósito. Rodando nas threads do Tomcat, uma rajada
+// de logins na troca de turno ocuparia todas elas e travaria /vendas. Aqui o BCrypt
+// roda num pool pequeno com fila limitada: quando a fila enche, a tarefa é recusada
+// na hora (RejectedExecutionException -> 503) e só o login degrada.
+//
+// Não é um bean Executor de propósito: nada além do AuthController deve usá-lo.
+// Métricas em executor.*{name=login}.
+// ==============================================
+@Component
+public class LoginExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    public LoginExecutor(@Value("${seguranca.login.threads:4}") int threads,
+                         @Value("${seguranca.login.fila:200}") int tamanhoFila,
+                         MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tamanhoFila),
+                new FabricaThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "login", List.of()).bindTo(meterRegistry);
+    }
+
+    // Lança RejectedExecutionException imediatamente se o pool e a fila estiverem cheios
+    public <T> CompletableFuture<T> executar(Supplier<T> tarefa) throws RejectedExecutionException {
+        return CompletableFuture.supplyAsync(tarefa, executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static final class FabricaThreads implements ThreadFactory {
+        private final AtomicInteger contador = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable tarefa) {
+            Thread thread = new Thread(tarefa, "login-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package com.tobias.controleestoquevendas.security;
 
 import com.tobias.controleestoquevendas.service.UserDetailsServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -26,25 +27,26 @@ public class SecurityConfig {
         this.customAuthenticationEntryPoint = customAuthenticationEntryPoint;
     }
 
+    // Custo do BCrypt (log2 das rodadas). Ao aumentar, os hashes antigos são
+    // regravados no próximo login correto de cada usuário (ver UserDetailsServiceImpl).
+    @Value("${seguranca.bcrypt.forca:10}")
+    private int forcaBcrypt;
+
     // Password encoder
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(forcaBcrypt);
     }
 
+    // AuthenticationManager montado aqui com o próprio provider: o provider não é um
+    // bean, então não é registrado também no AuthenticationManager global
     @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
-    }
-
-
-    // AuthenticationProvider
-    @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public AuthenticationManager authenticationManager() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+        authProvider.setUserDetailsPasswordService(userDetailsService);
+        return new ProviderManager(authProvider);
     }
 
     // SecurityFilterChain atualizado sem deprecated
@@ -58,17 +60,24 @@ public class SecurityConfig {
                 )
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.GET, "/auth/role").authenticated()
+                        .requestMatchers(HttpMethod.POST, "/auth/logout").authenticated()
+                        .requestMatchers(HttpMethod.POST, "/auth/revogar").hasAnyAuthority("GERENTE")
                         .requestMatchers("/auth/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasAnyAuthority("GERENTE")
                         .requestMatchers("/clientes/**").hasAnyAuthority("GERENTE", "VENDEDOR")
                         .requestMatchers(HttpMethod.GET, "/produtos/**").hasAnyAuthority("GERENTE", "VENDEDOR")
                         .requestMatchers("/produtos/**").hasAnyAuthority("GERENTE")
                                 .requestMatchers(HttpMethod.GET, "/vendas/meus").hasAnyAuthority("GERENTE", "VENDEDOR") // 1. Mais específico (minhas vendas)
                                 .requestMatchers(HttpMethod.GET, "/vendas/periodo").hasAnyAuthority("GERENTE")           // 2. Específico para relatório global
+                                .requestMatchers(HttpMethod.GET, "/vendas/periodo/**").hasAnyAuthority("GERENTE")
                                 .requestMatchers(HttpMethod.GET, "/vendas/{id}").hasAnyAuthority("GERENTE")
                                 .requestMatchers(HttpMethod.GET, "/vendas/total/meu").hasAnyAuthority("GERENTE", "VENDEDOR")
+                                .requestMatchers(HttpMethod.GET, "/vendas/total/meu/**").hasAnyAuthority("GERENTE", "VENDEDOR")
                                 .requestMatchers(HttpMethod.GET, "/vendas/cliente/{clienteId}").hasAnyAuthority("GERENTE", "VENDEDOR")
                                 .requestMatchers(HttpMethod.GET, "/vendas").hasAnyAuthority("GERENTE")
                         .requestMatchers(HttpMethod.POST, "/vendas").hasAnyAuthority("GERENTE", "VENDEDOR")
+                        .requestMatchers(HttpMethod.POST, "/vendas/lote").hasAnyAuthority("GERENTE", "VENDEDOR")
                         .requestMatchers(HttpMethod.PUT, "/vendas/**").hasAnyAuthority("GERENTE")
                         .requestMatchers(HttpMethod.DELETE, "/vendas/**").hasAnyAuthority("GERENTE")
                         .anyRequest().authenticated()
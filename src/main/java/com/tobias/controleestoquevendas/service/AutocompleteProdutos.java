@@ -0,0 +1,117 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.cache.AposTransacao;
+import com.tobias.controleestoquevendas.cache.ArvorePrefixos;
+import com.tobias.controleestoquevendas.model.Produto;
+import com.tobias.controleestoquevendas.repository.VendaProdutoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// ==============================================
+// AUTOCOMPLETAR DE NOMES DE PRODUTO (GET /produtos/autocomplete?prefix=)
+//
+// Árvore de prefixos (ArvorePrefixos) montada a partir do catálogo em memória,
+// com os K melhores de cada prefixo ordenados pelo volume vendido na janela
+// recente (venda_produto). Cadastro, renomeação e exclusão entram na árvore
+// depois do commit, sem remontá-la; o volume é relido na remontagem periódica.
+//
+// Configuração:
+//   produtos.autocomplete.k=10                  -> sugestões guardadas por prefixo
+//   produtos.autocomplete.janela-dias=30        -> janela do volume de vendas
+//   produtos.autocomplete.atualizacao-ms=600000 -> remontagem com o volume novo
+// ==============================================
+@Component
+public class AutocompleteProdutos {
+
+    private final CatalogoProdutos catalogo;
+    private final VendaProdutoRepository vendaProdutoRepository;
+    private final int k;
+    private final int janelaDias;
+
+    // null = ainda não montada (só é montada na primeira consulta)
+    private volatile ArvorePrefixos arvore;
+
+    public AutocompleteProdutos(CatalogoProdutos catalogo,
+                                VendaProdutoRepository vendaProdutoRepository,
+                                @Value("${produtos.autocomplete.k:10}") int k,
+                                @Value("${produtos.autocomplete.janela-dias:30}") int janelaDias) {
+        this.catalogo = catalogo;
+        this.vendaProdutoRepository = vendaProdutoRepository;
+        this.k = k;
+        this.janelaDias = janelaDias;
+    }
+
+    public int maximoSugestoes() {
+        return k;
+    }
+
+    public List<Produto> sugerir(String prefixo, int limite) {
+        ArvorePrefixos atual = arvore;
+        if (atual == null) {
+            atual = montar();
+        }
+        return catalogo.buscarPorIds(atual.buscar(prefixo, limite));
+    }
+
+    // ---------------------------------------------------------------------
+    // ESCRITA: chamadas dentro da transação que altera o produto.
+    // Registradas depois das do catálogo, então rodam com o catálogo já atualizado.
+    // ---------------------------------------------------------------------
+    public void atualizarAposCommit(Long produtoId, String nome) {
+        AposTransacao.commit(() -> aplicar(atual -> atual.adicionar(produtoId, nome)));
+    }
+
+    public void removerAposCommit(Long produtoId) {
+        AposTransacao.commit(() -> aplicar(atual -> atual.remover(produtoId)));
+    }
+
+    // Mesmo monitor da montagem: a alteração entra na árvore antiga antes da leitura
+    // do catálogo ou na nova depois da troca, nunca se perde entre as duas
+    private synchronized void aplicar(Consumer<ArvorePrefixos> alteracao) {
+        if (arvore != null) {
+            alteracao.accept(arvore);
+        }
+    }
+
+    // Carga em massa (importação): a árvore é remontada na próxima consulta
+    public synchronized void invalidar() {
+        arvore = null;
+    }
+
+    // ---------------------------------------------------------------------
+    // MONTAGEM
+    // ---------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${produtos.autocomplete.atualizacao-ms:600000}")
+    public void atualizarVolumes() {
+        if (arvore != null) {
+            remontar();
+        }
+    }
+
+    private synchronized ArvorePrefixos montar() {
+        return arvore != null ? arvore : remontar();
+    }
+
+    private synchronized ArvorePrefixos remontar() {
+        Map<Long, Long> volumes = new HashMap<>();
+        for (Object[] linha : vendaProdutoRepository.somarQuantidadesVendidasDesde(LocalDateTime.now().minusDays(janelaDias))) {
+            volumes.put(((Number) linha[0]).longValue(), ((Number) linha[1]).longValue());
+        }
+
+        Map<Long, String> nomes = new HashMap<>();
+        for (Produto produto : catalogo.listar()) {
+            nomes.put(produto.getId(), produto.getNome());
+        }
+
+        ArvorePrefixos nova = ArvorePrefixos.construir(k, volumes, nomes);
+        arvore = nova;
+        return nova;
+    }
+}
@@ -0,0 +1,95 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.cache.AposTransacao;
+import com.tobias.controleestoquevendas.cache.IndiceTrigramas;
+import com.tobias.controleestoquevendas.model.Cliente;
+import com.tobias.controleestoquevendas.repository.ClienteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+// ==============================================
+// BUSCA DE CLIENTES POR TRECHO DO NOME (índice de trigramas em memória)
+//
+// Substitui o LIKE '%x%' (varredura da tabela a cada tecla no PDV). O índice é
+// montado na primeira busca e guarda cópias dos clientes, então a busca não vai
+// ao banco. Cadastro, alteração e exclusão pelo ClienteService atualizam só o
+// cliente afetado, depois do commit.
+//
+// Uma alteração que confirme durante a montagem pode ficar de fora até a
+// próxima recarga (após o TTL), que também traz alterações feitas por fora.
+//
+// Configuração:
+//   clientes.busca.ttl=10m   -> recarga completa a partir do banco
+// ==============================================
+@Component
+public class BuscaClientes {
+
+    private final ClienteRepository repository;
+    private final long ttlNanos;
+
+    private volatile IndiceTrigramas<Cliente> indice;
+    private volatile long carregadoEm;
+
+    public BuscaClientes(ClienteRepository repository,
+                         @Value("${clientes.busca.ttl:10m}") Duration ttl) {
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public List<Cliente> buscar(String nome, int limite) {
+        return indice().buscar(nome, limite);
+    }
+
+    // ---------------------------------------------------------------------
+    // ESCRITA: chamadas dentro da transação que altera o cliente
+    // ---------------------------------------------------------------------
+    public void atualizarAposCommit(Cliente cliente) {
+        Cliente copia = copiar(cliente);
+        AposTransacao.commit(() -> {
+            IndiceTrigramas<Cliente> atual = indice;
+            if (atual != null) {
+                atual.adicionar(copia.getId(), copia.getNome(), copia);
+            }
+        });
+    }
+
+    public void removerAposCommit(Long clienteId) {
+        AposTransacao.commit(() -> {
+            IndiceTrigramas<Cliente> atual = indice;
+            if (atual != null) {
+                atual.remover(clienteId);
+            }
+        });
+    }
+
+    // ---------------------------------------------------------------------
+    // CARGA
+    // ---------------------------------------------------------------------
+    private IndiceTrigramas<Cliente> indice() {
+        IndiceTrigramas<Cliente> atual = indice;
+        if (atual != null && System.nanoTime() - carregadoEm < ttlNanos) {
+            return atual;
+        }
+        return carregar();
+    }
+
+    private synchronized IndiceTrigramas<Cliente> carregar() {
+        IndiceTrigramas<Cliente> atual = indice;
+        if (atual != null && System.nanoTime() - carregadoEm < ttlNanos) {
+            return atual;
+        }
+        List<Cliente> clientes = repository.findAll().stream().map(BuscaClientes::copiar).toList();
+        IndiceTrigramas<Cliente> novo = IndiceTrigramas.construir(clientes, Cliente::getId, Cliente::getNome, c -> c);
+        carregadoEm = System.nanoTime();
+        indice = novo;
+        return novo;
+    }
+
+    private static Cliente copiar(Cliente cliente) {
+        return new Cliente(cliente.getId(), cliente.getNome(), cliente.getCpf(),
+                cliente.getTelefone(), cliente.getCriadoEm());
+    }
+}
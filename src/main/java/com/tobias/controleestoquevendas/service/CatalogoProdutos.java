@@ -0,0 +1,393 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.cache.AposTransacao;
+import com.tobias.controleestoquevendas.cache.IndiceTrigramas;
+import com.tobias.controleestoquevendas.cache.VersoesRecurso;
+import com.tobias.controleestoquevendas.dto.CategoriaResumoDTO;
+import com.tobias.controleestoquevendas.model.Produto;
+import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ==============================================
+// CATÁLOGO DE PRODUTOS EM MEMÓRIA (read-through)
+//
+// Carregado inteiro na primeira leitura: mapa por id, índice por categoria,
+// índice de trigramas do nome (IndiceTrigramas), totais por categoria (facetas)
+// e um snapshot da lista completa. Alterações entram depois do commit, só no produto
+// afetado:
+//   - criar/atualizar/excluir produto -> a entrada é substituída ou removida;
+//   - baixa/devolução de estoque      -> a quantidade é ajustada pelo delta,
+//                                         sem descartar o catálogo a cada venda.
+//
+// As instâncias guardadas nunca são alteradas (uma mudança troca a instância),
+// por isso a listagem pode devolver o próprio snapshot. buscarPorId devolve uma
+// cópia, porque o PUT de produto altera o objeto recebido.
+//
+// O estoque exibido é o da coluna (baixas pendentes no EstoqueLedger ainda não
+// entraram) e serve só para exibição: a venda sempre confere o estoque no banco.
+// Um ajuste que confirme enquanto o catálogo está sendo carregado pode ser contado
+// duas vezes ou nenhuma; a recarga após o TTL corrige.
+//
+// Toda alteração (inclusive de estoque) incrementa as versões usadas como ETag
+// em /produtos; a carga abre uma geração nova, porque o banco pode ter mudado por fora.
+//
+// Configuração:
+//   produtos.catalogo.ttl=10m   -> recarga completa a partir do banco
+// ==============================================
+@Component
+public class CatalogoProdutos {
+
+    // Campos aceitos em ?sort= (nome e categoria sem distinção de caixa, como no MySQL)
+    public static final Map<String, Comparator<Produto>> ORDENACOES = Map.of(
+            "id", Comparator.comparing(Produto::getId),
+            "nome", Comparator.comparing(Produto::getNome, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)),
+            "categoria", Comparator.comparing(Produto::getCategoria, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)),
+            "preco", Comparator.comparing(Produto::getPreco, Comparator.nullsLast(Comparator.naturalOrder())),
+            "quantidadeEstoque", Comparator.comparing(Produto::getQuantidadeEstoque, Comparator.nullsLast(Comparator.naturalOrder())),
+            "criadoEm", Comparator.comparing(Produto::getCriadoEm, Comparator.nullsLast(Comparator.naturalOrder())));
+
+    private final ProdutoRepository repository;
+    private final long ttlNanos;
+    private final VersoesRecurso versoes = new VersoesRecurso("produtos");
+
+    // null = ainda não carregado (ou descartado)
+    private volatile Estado estado;
+
+    public CatalogoProdutos(ProdutoRepository repository,
+                            @Value("${produtos.catalogo.ttl:10m}") Duration ttl) {
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // ---------------------------------------------------------------------
+    // LEITURA
+    // ---------------------------------------------------------------------
+    public String etagLista() {
+        return versoes.etagColecao();
+    }
+
+    public String etag(Long id) {
+        return versoes.etag(id);
+    }
+
+    public List<Produto> listar() {
+        return estado().todos();
+    }
+
+    // Página do snapshot. Ordenado por id (padrão) é só um recorte; outra ordenação
+    // ordena uma cópia da lista a cada chamada, ainda sem ir ao banco.
+    public Page<Produto> pagina(Pageable pageable) {
+        List<Produto> produtos = estado().todos();
+        Sort sort = pageable.getSort();
+        if (sort.isSorted() && !sort.equals(Sort.by("id"))) {
+            produtos = new ArrayList<>(produtos);
+            produtos.sort(comparador(sort));
+        }
+        int inicio = (int) Math.min(pageable.getOffset(), produtos.size());
+        int fim = Math.min(inicio + pageable.getPageSize(), produtos.size());
+        return new PageImpl<>(produtos.subList(inicio, fim), pageable, produtos.size());
+    }
+
+    // Keyset: até "limite" produtos com id maior que aposId, em ordem de id
+    public List<Produto> aposId(Long aposId, int limite) {
+        List<Produto> produtos = new ArrayList<>(limite);
+        for (Produto produto : estado().porId.tailMap(aposId, false).values()) {
+            if (produtos.size() == limite) {
+                break;
+            }
+            produtos.add(produto);
+        }
+        return produtos;
+    }
+
+    // Trecho do nome, sem distinção de caixa e acento, ordenado por relevância
+    public List<Produto> buscarPorNome(String nome, int limite) {
+        Estado atual = estado();
+        List<Produto> produtos = new ArrayList<>();
+        for (Long id : atual.nomes.buscar(nome, limite)) {
+            Produto produto = atual.porId.get(id);
+            if (produto != null) {
+                produtos.add(produto);
+            }
+        }
+        return produtos;
+    }
+
+    // Produtos dos ids, na mesma ordem (ids que não existem mais são ignorados)
+    public List<Produto> buscarPorIds(long[] ids) {
+        Estado atual = estado();
+        List<Produto> produtos = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Produto produto = atual.porId.get(id);
+            if (produto != null) {
+                produtos.add(produto);
+            }
+        }
+        return produtos;
+    }
+
+    // Facetas por categoria, em ordem de nome: nenhuma varredura, só os totais mantidos
+    public List<CategoriaResumoDTO> resumoPorCategoria() {
+        return estado().totais.values().stream()
+                .map(t -> new CategoriaResumoDTO(t.categoria(), t.produtos(), t.estoque(), t.valorEstoque()))
+                .sorted(Comparator.comparing(CategoriaResumoDTO::getCategoria, String.CASE_INSENSITIVE_ORDER))
+                .toList();
+    }
+
+    public Optional<Produto> buscarPorId(Long id) {
+        return Optional.ofNullable(estado().porId.get(id)).map(CatalogoProdutos::copiar);
+    }
+
+    public List<Produto> buscarPorCategoria(String categoria) {
+        Estado atual = estado();
+        Set<Long> ids = atual.porCategoria.get(chaveCategoria(categoria));
+        if (ids == null) {
+            return List.of();
+        }
+        List<Produto> produtos = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Produto produto = atual.porId.get(id);
+            if (produto != null) {
+                produtos.add(produto);
+            }
+        }
+        return produtos;
+    }
+
+    // ---------------------------------------------------------------------
+    // ESCRITA: chamadas dentro da transação que altera o produto
+    // ---------------------------------------------------------------------
+    public void atualizarAposCommit(Produto produto) {
+        Produto copia = copiar(produto);
+        AposTransacao.commit(() -> {
+            Estado atual = estado;
+            if (atual != null) {
+                atual.substituir(copia);
+            }
+            versoes.incrementar(copia.getId());
+        });
+    }
+
+    public void removerAposCommit(Long produtoId) {
+        AposTransacao.commit(() -> {
+            Estado atual = estado;
+            if (atual != null) {
+                atual.remover(produtoId);
+            }
+            versoes.incrementar(produtoId);
+        });
+    }
+
+    // delta negativo = baixa, positivo = devolução
+    public void ajustarEstoqueAposCommit(Long produtoId, int delta) {
+        AposTransacao.commit(() -> {
+            Estado atual = estado;
+            if (atual != null) {
+                atual.ajustarEstoque(produtoId, delta);
+            }
+            versoes.incrementar(produtoId);
+        });
+    }
+
+    // Alteração em massa: o catálogo é recarregado na próxima leitura.
+    // Mesmo monitor da carga: uma carga em andamento (que pode ter lido o banco antes
+    // da alteração) termina antes e é descartada aqui, em vez de ser publicada depois.
+    public synchronized void invalidar() {
+        estado = null;
+        versoes.novaGeracao();
+    }
+
+    // ---------------------------------------------------------------------
+    // CARGA
+    // ---------------------------------------------------------------------
+    private Estado estado() {
+        Estado atual = estado;
+        if (atual != null && System.nanoTime() - atual.carregadoEm < ttlNanos) {
+            return atual;
+        }
+        return carregar();
+    }
+
+    // Uma carga por vez; quem chegar durante a carga usa o resultado dela
+    private synchronized Estado carregar() {
+        Estado atual = estado;
+        if (atual != null && System.nanoTime() - atual.carregadoEm < ttlNanos) {
+            return atual;
+        }
+        List<Produto> produtos = repository.findAll().stream().map(CatalogoProdutos::copiar).toList();
+        Estado novo = new Estado(System.nanoTime(), produtos);
+        estado = novo;
+        versoes.novaGeracao();
+        return novo;
+    }
+
+    // Desempate final por id: a ordem das páginas não muda entre chamadas
+    private static Comparator<Produto> comparador(Sort sort) {
+        Comparator<Produto> comparador = null;
+        for (Sort.Order ordem : sort) {
+            Comparator<Produto> campo = ORDENACOES.get(ordem.getProperty());
+            if (ordem.isDescending()) {
+                campo = campo.reversed();
+            }
+            comparador = comparador == null ? campo : comparador.thenComparing(campo);
+        }
+        return comparador.thenComparing(ORDENACOES.get("id"));
+    }
+
+    // Mesma equivalência da collation do MySQL (sem distinção de caixa e acento):
+    // a regra única de "nome igual" do catálogo, da importação e dos filtros de cadastro
+    static String chaveNome(String nome) {
+        String semAcento = Normalizer.normalize(nome.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return semAcento.toLowerCase(Locale.ROOT);
+    }
+
+    static String chaveCategoria(String categoria) {
+        return chaveNome(categoria);
+    }
+
+    static Produto copiar(Produto produto) {
+        return new Produto(produto.getId(), produto.getNome(), produto.getCategoria(),
+                produto.getPreco(), produto.getQuantidadeEstoque(), produto.getCriadoEm());
+    }
+
+    private static final class Estado {
+
+        private final long carregadoEm;
+        private final ConcurrentSkipListMap<Long, Produto> porId = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<String, Set<Long>> porCategoria = new ConcurrentHashMap<>();
+        private final IndiceTrigramas<Long> nomes;
+
+        // Facetas por categoria (mesma chave do índice), mantidas a cada alteração
+        private final ConcurrentHashMap<String, TotaisCategoria> totais = new ConcurrentHashMap<>();
+
+        // Incrementada a cada alteração; o snapshot só vale para a versão em que foi montado
+        private final AtomicLong versao = new AtomicLong();
+        private volatile Snapshot snapshot;
+
+        private Estado(long carregadoEm, List<Produto> produtos) {
+            this.carregadoEm = carregadoEm;
+            for (Produto produto : produtos) {
+                porId.put(produto.getId(), produto);
+                indexarCategoria(produto);
+                contabilizar(produto, 1);
+            }
+            this.nomes = IndiceTrigramas.construir(produtos, Produto::getId, Produto::getNome, Produto::getId);
+        }
+
+        // Ordenada por id, como o findAll
+        private List<Produto> todos() {
+            Snapshot atual = snapshot;
+            long versaoAtual = versao.get();
+            if (atual != null && atual.versao == versaoAtual) {
+                return atual.produtos;
+            }
+            List<Produto> produtos = List.copyOf(porId.values());
+            snapshot = new Snapshot(versaoAtual, produtos);
+            return produtos;
+        }
+
+        // Trocas estruturais (raras) em série, para o índice por categoria não divergir
+        private synchronized void substituir(Produto produto) {
+            Produto anterior = porId.put(produto.getId(), produto);
+            if (anterior != null && anterior.getCategoria() != null) {
+                Set<Long> ids = porCategoria.get(chaveCategoria(anterior.getCategoria()));
+                if (ids != null) {
+                    ids.remove(produto.getId());
+                }
+            }
+            indexarCategoria(produto);
+            nomes.adicionar(produto.getId(), produto.getNome(), produto.getId());
+            if (anterior != null) {
+                contabilizar(anterior, -1);
+            }
+            contabilizar(produto, 1);
+            versao.incrementAndGet();
+        }
+
+        private void indexarCategoria(Produto produto) {
+            if (produto.getCategoria() != null) {
+                porCategoria.computeIfAbsent(chaveCategoria(produto.getCategoria()),
+                        c -> new ConcurrentSkipListSet<>()).add(produto.getId());
+            }
+        }
+
+        private synchronized void remover(Long produtoId) {
+            Produto anterior = porId.remove(produtoId);
+            if (anterior == null) {
+                return;
+            }
+            if (anterior.getCategoria() != null) {
+                Set<Long> ids = porCategoria.get(chaveCategoria(anterior.getCategoria()));
+                if (ids != null) {
+                    ids.remove(produtoId);
+                }
+            }
+            nomes.remover(produtoId);
+            contabilizar(anterior, -1);
+            versao.incrementAndGet();
+        }
+
+        // Também em série com as trocas: as facetas descontam sempre a instância que saiu
+        private synchronized void ajustarEstoque(Long produtoId, int delta) {
+            Produto anterior = porId.get(produtoId);
+            if (anterior == null) {
+                return;
+            }
+            Produto ajustado = copiar(anterior);
+            ajustado.setQuantidadeEstoque(anterior.getQuantidadeEstoque() + delta);
+            porId.put(produtoId, ajustado);
+            contabilizar(anterior, -1);
+            contabilizar(ajustado, 1);
+            versao.incrementAndGet();
+        }
+
+        // sinal = 1 inclui o produto nos totais da categoria, -1 retira
+        private void contabilizar(Produto produto, int sinal) {
+            if (produto.getCategoria() == null) {
+                return;
+            }
+            long estoque = produto.getQuantidadeEstoque() == null ? 0 : produto.getQuantidadeEstoque();
+            BigDecimal valor = produto.getPreco() == null
+                    ? BigDecimal.ZERO
+                    : produto.getPreco().multiply(BigDecimal.valueOf(estoque));
+
+            totais.compute(chaveCategoria(produto.getCategoria()), (chave, atual) -> {
+                TotaisCategoria base = atual != null
+                        ? atual
+                        : new TotaisCategoria(produto.getCategoria(), 0, 0, BigDecimal.ZERO);
+                TotaisCategoria novo = new TotaisCategoria(base.categoria(),
+                        base.produtos() + sinal,
+                        base.estoque() + sinal * estoque,
+                        sinal > 0 ? base.valorEstoque().add(valor) : base.valorEstoque().subtract(valor));
+                return novo.produtos() == 0 ? null : novo;
+            });
+        }
+    }
+
+    private record TotaisCategoria(String categoria, long produtos, long estoque, BigDecimal valorEstoque) {
+    }
+
+    private record Snapshot(long versao, List<Produto> produtos) {
+    }
+}
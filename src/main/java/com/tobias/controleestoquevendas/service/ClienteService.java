@@ -1,27 +1,91 @@
 package com.tobias.controleestoquevendas.service;
 
+import com.tobias.controleestoquevendas.cache.VersoesRecurso;
+import com.tobias.controleestoquevendas.dto.PaginaCursorDTO;
 import com.tobias.controleestoquevendas.model.Cliente;
 import com.tobias.controleestoquevendas.repository.ClienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class ClienteService {
 
+    // Campos aceitos em ?sort= na listagem de clientes
+    public static final Set<String> CAMPOS_ORDENACAO = Set.of("id", "nome", "cpf", "telefone");
+
     @Autowired
     private ClienteRepository repository;
 
+    @Autowired
+    private FiltrosCadastro filtros;
+
+    // Busca por nome em memória (índice de trigramas)
+    @Autowired
+    private BuscaClientes busca;
+
+    // Versões usadas como ETag em /clientes: toda escrita passa por este service
+    private final VersoesRecurso versoes = new VersoesRecurso("clientes");
+
+    // ETags: lidos antes dos dados
+    public String etagClientes() {
+        return versoes.etagColecao();
+    }
+
+    public String etagCliente(Long id) {
+        return versoes.etag(id);
+    }
+
     // Create
+    @Transactional
     public Cliente criarCliente(Cliente cliente) {
-        return repository.save(cliente);
+        filtros.cpfs().adicionar(cliente.getCpf());
+        Cliente novo = repository.save(cliente);
+        versoes.incrementarAposCommit(novo.getId());
+        busca.atualizarAposCommit(novo);
+        return novo;
+    }
+
+    // Read All paginado (offset)
+    public Page<Cliente> listarClientesPaginado(Pageable pageable) {
+        return repository.findAll(pageable);
+    }
+
+    // Read All por cursor (keyset): id > apos, em ordem de id
+    public PaginaCursorDTO<Cliente> listarClientesApos(Long apos, int tamanho) {
+        // tamanho + 1: a linha extra só indica se existe próxima página
+        List<Cliente> clientes = repository.findByIdGreaterThanOrderByIdAsc(apos, PageRequest.of(0, tamanho + 1));
+        return PaginaCursorDTO.porId(clientes, tamanho, Cliente::getId);
+    }
+
+    // Exportação: percorre a tabela em blocos por id, uma consulta curta por bloco.
+    // A memória fica limitada a um bloco, qualquer que seja o número de clientes.
+    public void percorrerClientes(int tamanhoBloco, Consumer<List<Cliente>> consumidor) {
+        Long ultimoId = 0L;
+        while (true) {
+            List<Cliente> bloco = repository.findByIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.of(0, tamanhoBloco));
+            if (bloco.isEmpty()) {
+                return;
+            }
+            consumidor.accept(bloco);
+            if (bloco.size() < tamanhoBloco) {
+                return;
+            }
+            ultimoId = bloco.get(bloco.size() - 1).getId();
+        }
     }
 
-    // Read All
-    public List<Cliente> listarClientes() {
-        return repository.findAll();
+    // CPF já cadastrado? O filtro responde o "não" sem consultar o banco
+    public boolean existeCpf(String cpf) {
+        return filtros.cpfs().podeExistir(cpf) && repository.existsByCpf(cpf);
     }
 
     // Read One (por ID)
@@ -29,18 +93,26 @@ public class ClienteService {
         return repository.findById(id);
     }
 
-    // Read One (por nome)
-    public List<Cliente> buscarPorNome(String nome) {
-        return repository.findByNomeContainingIgnoreCase(nome);
+    // Read (por trecho do nome): os "limite" mais relevantes, sem ir ao banco
+    public List<Cliente> buscarPorNome(String nome, int limite) {
+        return busca.buscar(nome, limite);
     }
 
     // Update
+    @Transactional
     public Cliente atualizarCliente(Cliente cliente) {
-        return repository.save(cliente);
+        filtros.cpfs().adicionar(cliente.getCpf());
+        Cliente atualizado = repository.save(cliente);
+        versoes.incrementarAposCommit(atualizado.getId());
+        busca.atualizarAposCommit(atualizado);
+        return atualizado;
     }
 
     // Delete
+    @Transactional
     public void deletarCliente(Long id) {
         repository.deleteById(id);
+        versoes.incrementarAposCommit(id);
+        busca.removerAposCommit(id);
     }
 }
@@ -0,0 +1,360 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.cache.AposTransacao;
+import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import com.tobias.controleestoquevendas.repository.VendaProdutoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// ==============================================
+// LEDGER DE ESTOQUE EM MEMÓRIA (opcional)
+//
+// Para produtos "quentes", a venda reserva o estoque num contador em memória em vez
+// de disputar a linha de produtos no banco. O item da venda é gravado com
+// estoque_aplicado = false e funciona como diário: o flush periódico soma essas
+// linhas e aplica a baixa em produtos.quantidade_estoque, marcando-as como aplicadas.
+// Como o diário é a própria venda persistida, uma queda do processo não perde baixas:
+// na subida, tudo que ficou pendente é aplicado.
+//
+// Invariante por produto: disponivel = coluna - pendentes no diário - reservas em voo.
+// Só é válido com UMA instância da aplicação (o contador é local ao processo).
+//
+// Os contadores são lidos do banco fora das requisições: na subida e, depois de uma
+// invalidação, pelo próprio ciclo do flush. Uma venda que ainda encontre o contador
+// frio lê o saldo na transação dela, antes do monitor (sem segunda conexão do pool).
+//
+// Configuração:
+//   estoque.ledger.habilitado=true          -> todos os produtos
+//   estoque.ledger.produtos=1,2,3           -> somente esses produtos
+//   estoque.ledger.intervalo-ms=1000        -> intervalo do flush
+// ==============================================
+@Component
+public class EstoqueLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueLedger.class);
+
+    private final ProdutoRepository produtoRepository;
+    private final VendaProdutoRepository vendaProdutoRepository;
+    private final CatalogoProdutos catalogoProdutos;
+    private final TransactionTemplate novaTransacao;
+    private final TransactionTemplate transacaoLeitura;
+
+    private final boolean habilitadoGlobal;
+    private final Set<Long> produtosHabilitados;
+
+    private final ConcurrentHashMap<Long, Saldo> saldos = new ConcurrentHashMap<>();
+
+    public EstoqueLedger(ProdutoRepository produtoRepository,
+                         VendaProdutoRepository vendaProdutoRepository,
+                         CatalogoProdutos catalogoProdutos,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${estoque.ledger.habilitado:false}") boolean habilitadoGlobal,
+                         @Value("${estoque.ledger.produtos:}") Set<Long> produtosHabilitados) {
+        this.produtoRepository = produtoRepository;
+        this.vendaProdutoRepository = vendaProdutoRepository;
+        this.catalogoProdutos = catalogoProdutos;
+        this.habilitadoGlobal = habilitadoGlobal;
+        this.produtosHabilitados = Set.copyOf(produtosHabilitados);
+
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // Só usada fora de transações (subida e agendador)
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    // Há algum produto sob o ledger?
+    public boolean ativo() {
+        return habilitadoGlobal || !produtosHabilitados.isEmpty();
+    }
+
+    public boolean gerencia(Long produtoId) {
+        return habilitadoGlobal || produtosHabilitados.contains(produtoId);
+    }
+
+    // ---------------------------------------------------------------------
+    // RESERVA: chamada dentro da transação da venda.
+    // Retorna false se o estoque não for suficiente (ou o produto não existir).
+    // Se a transação for desfeita, a quantidade volta para o saldo.
+    // ---------------------------------------------------------------------
+    public boolean reservar(Long produtoId, int quantidade) {
+        Saldo saldo = saldos.computeIfAbsent(produtoId, id -> new Saldo());
+        boolean reservado = false;
+        while (!reservado) {
+            if (!saldo.carregado && !carregar(produtoId, saldo, this::lerDisponivel)) {
+                return false;
+            }
+            synchronized (saldo) {
+                // Invalidado entre a carga e o monitor: lê de novo
+                if (!saldo.carregado) {
+                    continue;
+                }
+                if (saldo.disponivel < quantidade) {
+                    return false;
+                }
+                saldo.disponivel -= quantidade;
+                saldo.iniciadas += quantidade;
+                saldo.emVoo.addAndGet(quantidade);
+                reservado = true;
+            }
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    synchronized (saldo) {
+                        saldo.disponivel += quantidade;
+                    }
+                }
+                saldo.emVoo.addAndGet(-quantidade);
+            }
+        });
+        return true;
+    }
+
+    // Saldo disponível agora (lido do banco se preciso); vazio se o produto não existir
+    public OptionalInt consultar(Long produtoId) {
+        Saldo saldo = saldos.computeIfAbsent(produtoId, id -> new Saldo());
+        if (!saldo.carregado && !carregar(produtoId, saldo, this::lerDisponivel)) {
+            return OptionalInt.empty();
+        }
+        synchronized (saldo) {
+            return OptionalInt.of(saldo.disponivel);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Estoque alterado por fora do ledger (edição de venda, exclusão, PUT de produto):
+    // depois do commit o saldo é relido do banco no próximo ciclo do flush.
+    // ---------------------------------------------------------------------
+    public void invalidarAposCommit(Long produtoId) {
+        if (!gerencia(produtoId)) {
+            return;
+        }
+        AposTransacao.conclusao(() -> invalidar(produtoId));
+    }
+
+    private void invalidar(Long produtoId) {
+        Saldo saldo = saldos.get(produtoId);
+        if (saldo != null) {
+            synchronized (saldo) {
+                saldo.carregado = false;
+                saldo.geracao++;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Aplica, na transação corrente, as baixas pendentes de uma venda.
+    // Usado antes de editar/excluir a venda, para que os itens antigos
+    // não sumam do diário sem terem sido gravados em produtos.
+    // ---------------------------------------------------------------------
+    public void aplicarPendentesDaVenda(Long vendaId) {
+        List<Object[]> pendentes = vendaProdutoRepository.travarBaixasPendentesDaVenda(vendaId);
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        for (Object[] linha : pendentes) {
+            Long produtoId = ((Number) linha[0]).longValue();
+            int quantidade = ((Number) linha[1]).intValue();
+            produtoRepository.aplicarBaixa(produtoId, quantidade);
+            catalogoProdutos.ajustarEstoqueAposCommit(produtoId, -quantidade);
+        }
+        vendaProdutoRepository.marcarEstoqueAplicadoDaVenda(vendaId);
+    }
+
+    // Aplica, na transação corrente, todas as baixas pendentes de um produto.
+    public void aplicarPendentes(Long produtoId) {
+        List<Object[]> pendentes = vendaProdutoRepository.travarBaixasPendentes(produtoId);
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        List<Long> vendaIds = new ArrayList<>(pendentes.size());
+        int total = 0;
+        for (Object[] linha : pendentes) {
+            vendaIds.add(((Number) linha[0]).longValue());
+            total += ((Number) linha[1]).intValue();
+        }
+        produtoRepository.aplicarBaixa(produtoId, total);
+        catalogoProdutos.ajustarEstoqueAposCommit(produtoId, -total);
+        vendaProdutoRepository.marcarEstoqueAplicado(produtoId, vendaIds);
+    }
+
+    // Estoque redefinido por contagem (PUT de produto): o valor novo já considera
+    // as vendas feitas, então as baixas pendentes são marcadas como aplicadas sem
+    // mexer na coluna.
+    public void absorverPendentes(Long produtoId) {
+        List<Object[]> pendentes = vendaProdutoRepository.travarBaixasPendentes(produtoId);
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        List<Long> vendaIds = pendentes.stream()
+                .map(linha -> ((Number) linha[0]).longValue())
+                .toList();
+        vendaProdutoRepository.marcarEstoqueAplicado(produtoId, vendaIds);
+    }
+
+    // ---------------------------------------------------------------------
+    // FLUSH PERIÓDICO (write-behind): um UPDATE por produto com a soma das baixas
+    // ---------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${estoque.ledger.intervalo-ms:1000}")
+    public void aplicarBaixasPendentes() {
+        if (ativo()) {
+            aplicarTodasPendentes();
+            recarregarInvalidados();
+        }
+    }
+
+    // Recuperação após queda: aplica o que ficou pendente, mesmo com o ledger desligado.
+    // Em seguida carrega os contadores, para que as vendas não precisem ler o saldo.
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarBaixasPendentes() {
+        aplicarTodasPendentes();
+        if (ativo()) {
+            carregarTodos();
+        }
+    }
+
+    private void aplicarTodasPendentes() {
+        for (Long produtoId : vendaProdutoRepository.findProdutosComBaixaPendente()) {
+            try {
+                novaTransacao.executeWithoutResult(status -> aplicarPendentes(produtoId));
+            } catch (RuntimeException e) {
+                // As linhas continuam pendentes e entram no próximo ciclo
+                log.warn("Falha ao aplicar baixas pendentes do produto {}", produtoId, e);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // CARGA DOS CONTADORES
+    // ---------------------------------------------------------------------
+
+    // Todos os produtos sob o ledger, com duas consultas agregadas
+    private void carregarTodos() {
+        // Contador criado depois desta marca começa do zero: Marca(0, 0, 0) é exata para ele
+        Map<Long, Marca> marcas = new HashMap<>();
+        saldos.forEach((produtoId, saldo) -> marcas.put(produtoId, marcar(saldo)));
+
+        Map<Long, Integer> disponiveis = transacaoLeitura.execute(status -> {
+            Map<Long, Integer> lidos = new HashMap<>();
+            for (Object[] linha : produtoRepository.findQuantidadesEstoque()) {
+                Long produtoId = ((Number) linha[0]).longValue();
+                if (gerencia(produtoId)) {
+                    lidos.put(produtoId, ((Number) linha[1]).intValue());
+                }
+            }
+            for (Object[] linha : vendaProdutoRepository.somarBaixasPendentesPorProduto()) {
+                lidos.computeIfPresent(((Number) linha[0]).longValue(),
+                        (id, coluna) -> coluna - ((Number) linha[1]).intValue());
+            }
+            return lidos;
+        });
+        if (disponiveis == null) {
+            return;
+        }
+
+        disponiveis.forEach((produtoId, disponivel) -> {
+            Saldo saldo = saldos.computeIfAbsent(produtoId, id -> new Saldo());
+            synchronized (saldo) {
+                // Uma venda que já carregou o contador sozinha vence a carga em massa
+                Marca marca = marcas.getOrDefault(produtoId, new Marca(0, 0, 0));
+                if (!saldo.carregado && marca.geracao() == saldo.geracao) {
+                    instalar(saldo, marca, disponivel);
+                }
+            }
+        });
+    }
+
+    // Contadores invalidados desde o último ciclo
+    private void recarregarInvalidados() {
+        saldos.forEach((produtoId, saldo) -> {
+            if (!saldo.carregado) {
+                try {
+                    carregar(produtoId, saldo, id -> transacaoLeitura.execute(status -> lerDisponivel(id)));
+                } catch (RuntimeException e) {
+                    // Continua frio: a próxima venda (ou o próximo ciclo) lê de novo
+                    log.warn("Falha ao recarregar o saldo do produto {}", produtoId, e);
+                }
+            }
+        });
+    }
+
+    // A leitura é feita FORA do monitor do saldo, na transação de quem chama (a da venda,
+    // ou uma transação de leitura do agendador): nenhuma conexão extra, nenhuma reserva
+    // esperando o banco. Reservas que entrem durante a leitura são descontadas na instalação;
+    // uma invalidação durante a leitura obriga a ler de novo.
+    private boolean carregar(Long produtoId, Saldo saldo, Function<Long, Optional<Integer>> leitura) {
+        while (true) {
+            Marca marca = marcar(saldo);
+            Optional<Integer> disponivel = leitura.apply(produtoId);
+
+            synchronized (saldo) {
+                if (saldo.carregado) {
+                    return true;
+                }
+                if (disponivel == null || disponivel.isEmpty()) {
+                    return false;
+                }
+                if (marca.geracao() == saldo.geracao) {
+                    instalar(saldo, marca, disponivel.get());
+                    return true;
+                }
+            }
+        }
+    }
+
+    private Optional<Integer> lerDisponivel(Long produtoId) {
+        return produtoRepository.findQuantidadeEstoque(produtoId)
+                .map(coluna -> coluna - vendaProdutoRepository.somarBaixasPendentes(produtoId).intValue());
+    }
+
+    private static Marca marcar(Saldo saldo) {
+        synchronized (saldo) {
+            return new Marca(saldo.geracao, saldo.emVoo.get(), saldo.iniciadas);
+        }
+    }
+
+    // Chamado com o monitor do saldo.
+    // Desconta as reservas em voo no início da leitura e todas as que começaram depois dela.
+    // Uma reserva que confirme durante a leitura é descontada duas vezes até a
+    // próxima recarga: erra para menos, nunca vende além do estoque.
+    private static void instalar(Saldo saldo, Marca marca, int lido) {
+        saldo.disponivel = lido - marca.emVoo() - (int) (saldo.iniciadas - marca.iniciadas());
+        saldo.carregado = true;
+    }
+
+    private record Marca(long geracao, int emVoo, long iniciadas) {
+    }
+
+    private static final class Saldo {
+        private volatile boolean carregado;
+        private int disponivel;
+        private long iniciadas; // total já reservado (só cresce)
+        private long geracao;   // incrementada a cada invalidação
+        private final AtomicInteger emVoo = new AtomicInteger();
+    }
+}
@@ -0,0 +1,71 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.cache.FiltroExistencia;
+import com.tobias.controleestoquevendas.repository.ClienteRepository;
+import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import com.tobias.controleestoquevendas.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// ==============================================
+// FILTROS DE EXISTÊNCIA DOS CADASTROS (ver FiltroExistencia)
+//
+// Antes de cada cadastro o sistema pergunta se o CPF, o nome do produto ou o
+// username já existem; quase sempre a resposta é "não". Estes filtros dão esse
+// "não" sem consultar o MySQL. São carregados na subida e reconstruídos
+// periodicamente, o que descarta os valores excluídos. Valem por instância: um
+// cadastro feito em outra instância só aparece aqui na próxima reconstrução e,
+// até lá, é barrado pela constraint UNIQUE (409 no controller).
+//
+// Configuração:
+//   cadastro.filtros.elementos-esperados=100000   -> tamanho mínimo de cada filtro
+//   cadastro.filtros.taxa-falso-positivo=0.01
+//   cadastro.filtros.reconstrucao-ms=3600000
+// ==============================================
+@Component
+public class FiltrosCadastro {
+
+    private final ClienteRepository clienteRepository;
+    private final ProdutoRepository produtoRepository;
+    private final UserRepository userRepository;
+
+    private final FiltroExistencia cpfs;
+    private final FiltroExistencia nomesProduto;
+    private final FiltroExistencia usernames;
+
+    public FiltrosCadastro(ClienteRepository clienteRepository,
+                           ProdutoRepository produtoRepository,
+                           UserRepository userRepository,
+                           @Value("${cadastro.filtros.elementos-esperados:100000}") long elementosEsperados,
+                           @Value("${cadastro.filtros.taxa-falso-positivo:0.01}") double taxaFalsoPositivo) {
+        this.clienteRepository = clienteRepository;
+        this.produtoRepository = produtoRepository;
+        this.userRepository = userRepository;
+
+        // CPF só com dígitos; nomes sem caixa e acento, como compara a collation do banco
+        this.cpfs = new FiltroExistencia(elementosEsperados, taxaFalsoPositivo, cpf -> cpf.replaceAll("\\D", ""));
+        this.nomesProduto = new FiltroExistencia(elementosEsperados, taxaFalsoPositivo, CatalogoProdutos::chaveNome);
+        this.usernames = new FiltroExistencia(elementosEsperados, taxaFalsoPositivo, CatalogoProdutos::chaveNome);
+    }
+
+    public FiltroExistencia cpfs() {
+        return cpfs;
+    }
+
+    public FiltroExistencia nomesProduto() {
+        return nomesProduto;
+    }
+
+    public FiltroExistencia usernames() {
+        return usernames;
+    }
+
+    // Também na subida da aplicação (primeira execução)
+    @Scheduled(fixedDelayString = "${cadastro.filtros.reconstrucao-ms:3600000}")
+    public void reconstruir() {
+        cpfs.reconstruir(clienteRepository::findTodosCpfs);
+        nomesProduto.reconstruir(produtoRepository::findTodosNomes);
+        usernames.reconstruir(userRepository::findTodosUsernames);
+    }
+}
@@ -0,0 +1,105 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.cache.CacheExpiravel;
+import com.tobias.controleestoquevendas.dto.VendaResponseDTO;
+import com.tobias.controleestoquevendas.model.Venda;
+import com.tobias.controleestoquevendas.model.VendaIdempotenciaId;
+import com.tobias.controleestoquevendas.repository.VendaIdempotenciaRepository;
+import com.tobias.controleestoquevendas.repository.VendaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+// ==============================================
+// IDEMPOTÊNCIA DO POST /vendas (header Idempotency-Key)
+//
+// A primeira requisição com uma chave reserva a chave no banco na mesma transação
+// da venda; a resposta (VendaResponseDTO, não a entidade) fica num cache em memória
+// limitado e com TTL. Uma repetição
+// (retry do PDV) devolve a venda original sem passar pelo VendaService nem tocar
+// no estoque. Antes da venda só o cache é consultado (nenhuma transação a mais
+// para chaves novas); a tabela só é lida quando a reserva da chave falha, o que
+// cobre reinícios e entradas já despejadas do cache.
+// ==============================================
+@Service
+public class IdempotenciaVendaService {
+
+    private final VendaIdempotenciaRepository idempotenciaRepository;
+    private final VendaRepository vendaRepository;
+    private final CacheExpiravel<VendaIdempotenciaId, VendaResponseDTO> cache;
+    private final Duration ttl;
+
+    public IdempotenciaVendaService(VendaIdempotenciaRepository idempotenciaRepository,
+                                    VendaRepository vendaRepository,
+                                    @Value("${vendas.idempotencia.capacidade:10000}") int capacidade,
+                                    @Value("${vendas.idempotencia.ttl:24h}") Duration ttl) {
+        this.idempotenciaRepository = idempotenciaRepository;
+        this.vendaRepository = vendaRepository;
+        this.cache = new CacheExpiravel<>(capacidade, ttl);
+        this.ttl = ttl;
+    }
+
+    // Caminho rápido, antes da venda: só memória, nunca o banco
+    public Optional<VendaResponseDTO> buscarEmCache(String chave, Long vendedorId) {
+        return Optional.ofNullable(cache.get(new VendaIdempotenciaId(vendedorId, chave)));
+    }
+
+    // Venda já criada com essa chave, se houver (cache e, se preciso, a tabela).
+    // Usado depois que reservar() falhou com chave repetida.
+    @Transactional(readOnly = true)
+    public Optional<VendaResponseDTO> buscar(String chave, Long vendedorId) {
+        VendaIdempotenciaId id = new VendaIdempotenciaId(vendedorId, chave);
+
+        VendaResponseDTO emCache = cache.get(id);
+        if (emCache != null) {
+            return Optional.of(emCache);
+        }
+
+        return idempotenciaRepository.findValida(vendedorId, chave, LocalDateTime.now().minus(ttl))
+                .flatMap(registro -> vendaRepository.findById(registro.getVendaId()).map(venda -> {
+                    VendaResponseDTO resposta = new VendaResponseDTO(venda);
+                    // No cache só até a chave expirar, não um TTL inteiro a partir de agora
+                    long expiraEm = registro.getCriadoEm().plus(ttl)
+                            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    cache.put(id, resposta, expiraEm);
+                    return resposta;
+                }));
+    }
+
+    // Dentro da transação da venda, ANTES de mexer no estoque.
+    // Uma chave repetida (inclusive em voo) falha aqui com DataIntegrityViolationException.
+    // Uma chave já expirada (ainda não apagada pela limpeza) é liberada e vale de novo.
+    public void reservar(String chave, Long vendedorId) {
+        idempotenciaRepository.removerSeExpirada(vendedorId, chave, LocalDateTime.now().minus(ttl));
+        idempotenciaRepository.reservar(vendedorId, chave);
+    }
+
+    // Dentro da transação da venda, depois de gravada; o cache só recebe a resposta após o commit
+    public void concluir(String chave, Long vendedorId, Venda venda) {
+        idempotenciaRepository.concluir(vendedorId, chave, venda.getId());
+
+        VendaIdempotenciaId id = new VendaIdempotenciaId(vendedorId, chave);
+        VendaResponseDTO resposta = new VendaResponseDTO(venda);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(id, resposta);
+            }
+        });
+    }
+
+    // Chaves mais antigas que o TTL deixam de valer
+    @Scheduled(fixedDelayString = "${vendas.idempotencia.limpeza-ms:3600000}")
+    @Transactional
+    public void removerChavesExpiradas() {
+        idempotenciaRepository.deleteByCriadoEmBefore(LocalDateTime.now().minus(ttl));
+    }
+}
@@ -0,0 +1,396 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tobias.controleestoquevendas.dto.ImportacaoProdutosResultadoDTO;
+import com.tobias.controleestoquevendas.model.Produto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// ==============================================
+// IMPORTAÇÃO EM MASSA DE PRODUTOS (POST /produtos/importacao)
+//
+// Carga do catálogo do fornecedor sem um POST /produtos por item. O corpo é lido
+// linha a linha (CSV com cabeçalho ou NDJSON), sem carregar o arquivo inteiro:
+//   1. cada linha vira um Produto e passa pelas mesmas validações do POST;
+//   2. o nome é conferido em memória contra os nomes do catálogo e os já lidos
+//      do arquivo (mesma comparação sem caixa e acento da collation do banco);
+//   3. as linhas aceitas são gravadas em lotes JDBC (INSERT dos novos e, com
+//      atualizar=true, UPDATE de categoria e preço dos existentes), um lote por
+//      transação. O estoque de um produto existente não é alterado pela importação
+//      (as baixas pendentes no EstoqueLedger seriam sobrescritas).
+// Se um lote falhar (ex.: nome cadastrado por outro usuário durante a importação),
+// ele é desfeito e regravado linha a linha, e só as linhas recusadas viram erro.
+//
+// Ao final o catálogo em memória e o autocompletar são descartados (recarregam na
+// próxima leitura), o que também troca o ETag de /produtos.
+//
+// No MySQL, o lote só vira INSERT de várias linhas com rewriteBatchedStatements=true
+// na URL de conexão.
+//
+// Configuração:
+//   produtos.importacao.tamanho-lote=1000   -> linhas por lote/transação
+//   produtos.importacao.maximo-erros=1000   -> erros detalhados na resposta
+// ==============================================
+@Service
+public class ImportacaoProdutosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoProdutosService.class);
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO produtos (nome, categoria, preco, quantidade_estoque, criado_em) VALUES (?, ?, ?, ?, ?)";
+    private static final String SQL_ATUALIZAR =
+            "UPDATE produtos SET categoria = ?, preco = ? WHERE id = ?";
+
+    private static final List<String> COLUNAS_CSV = List.of("nome", "categoria", "preco", "quantidadeEstoque");
+
+    public enum Formato { CSV, NDJSON }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CatalogoProdutos catalogo;
+    private final AutocompleteProdutos autocomplete;
+    private final FiltrosCadastro filtros;
+    private final int tamanhoLote;
+    private final int maximoErros;
+
+    public ImportacaoProdutosService(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     Validator validator,
+                                     ObjectMapper objectMapper,
+                                     CatalogoProdutos catalogo,
+                                     AutocompleteProdutos autocomplete,
+                                     FiltrosCadastro filtros,
+                                     @Value("${produtos.importacao.tamanho-lote:1000}") int tamanhoLote,
+                                     @Value("${produtos.importacao.maximo-erros:1000}") int maximoErros) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.catalogo = catalogo;
+        this.autocomplete = autocomplete;
+        this.filtros = filtros;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoErros = maximoErros;
+    }
+
+    // IllegalArgumentException: cabeçalho CSV ausente ou incompleto (nada é gravado)
+    public ImportacaoProdutosResultadoDTO importar(InputStream corpo, Formato formato, boolean atualizar) {
+        Importacao importacao = new Importacao(atualizar);
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8))) {
+            LeitorLinha conversor = formato == Formato.CSV ? leitorCsv(leitor.readLine()) : this::lerJson;
+            long numero = formato == Formato.CSV ? 1 : 0;
+
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                numero++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+                importacao.resultado.setLinhasProcessadas(importacao.resultado.getLinhasProcessadas() + 1);
+                try {
+                    importacao.aceitar(numero, conversor.ler(linha));
+                } catch (LinhaInvalidaException e) {
+                    importacao.rejeitar(numero, e.nome, e.getMessage());
+                }
+                if (importacao.pendentes() >= tamanhoLote) {
+                    importacao.gravarLote();
+                }
+            }
+            importacao.gravarLote();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (importacao.resultado.getInseridos() + importacao.resultado.getAtualizados() > 0) {
+                catalogo.invalidar();
+                autocomplete.invalidar();
+            }
+        }
+        return importacao.resultado;
+    }
+
+    // ---------------------------------------------------------------------
+    // Estado de uma importação: nomes vistos, lote pendente e resultado
+    // ---------------------------------------------------------------------
+    private final class Importacao {
+
+        private final boolean atualizar;
+        private final ImportacaoProdutosResultadoDTO resultado = new ImportacaoProdutosResultadoDTO();
+
+        // Nome normalizado -> id, a partir do catálogo em memória (sem consulta por linha)
+        private final Map<String, Long> existentes = new HashMap<>();
+        // Nome normalizado -> linha do arquivo em que apareceu primeiro
+        private final Map<String, Long> lidos = new HashMap<>();
+
+        private final List<Linha> novos = new ArrayList<>();
+        private final List<Linha> alterados = new ArrayList<>();
+
+        private Importacao(boolean atualizar) {
+            this.atualizar = atualizar;
+            for (Produto produto : catalogo.listar()) {
+                existentes.put(CatalogoProdutos.chaveNome(produto.getNome()), produto.getId());
+            }
+        }
+
+        private int pendentes() {
+            return novos.size() + alterados.size();
+        }
+
+        private void aceitar(long numero, Produto produto) {
+            String erro = validar(produto);
+            if (erro != null) {
+                rejeitar(numero, produto.getNome(), erro);
+                return;
+            }
+
+            String chave = CatalogoProdutos.chaveNome(produto.getNome());
+            Long primeira = lidos.putIfAbsent(chave, numero);
+            if (primeira != null) {
+                rejeitar(numero, produto.getNome(), "Nome repetido no arquivo (linha " + primeira + ").");
+                return;
+            }
+
+            Long id = existentes.get(chave);
+            if (id == null) {
+                novos.add(new Linha(numero, produto));
+            } else if (atualizar) {
+                produto.setId(id);
+                alterados.add(new Linha(numero, produto));
+            } else {
+                rejeitar(numero, produto.getNome(), "Já existe um produto com o nome '" + produto.getNome() + "'.");
+            }
+        }
+
+        private void rejeitar(long numero, String nome, String erro) {
+            resultado.setRejeitados(resultado.getRejeitados() + 1);
+            if (resultado.getErros().size() < maximoErros) {
+                resultado.getErros().add(new ImportacaoProdutosResultadoDTO.ErroLinha(numero, nome, erro));
+            } else {
+                resultado.setErrosTruncados(true);
+            }
+        }
+
+        // Lote inteiro numa transação; se o banco recusar, regrava linha a linha
+        private void gravarLote() {
+            if (pendentes() == 0) {
+                return;
+            }
+            novos.forEach(linha -> filtros.nomesProduto().adicionar(linha.produto().getNome()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!novos.isEmpty()) {
+                        jdbcTemplate.batchUpdate(SQL_INSERIR, novos.stream().map(Linha::parametrosInsercao).toList());
+                    }
+                    if (!alterados.isEmpty()) {
+                        jdbcTemplate.batchUpdate(SQL_ATUALIZAR, alterados.stream().map(Linha::parametrosAtualizacao).toList());
+                    }
+                });
+                resultado.setInseridos(resultado.getInseridos() + novos.size());
+                resultado.setAtualizados(resultado.getAtualizados() + alterados.size());
+            } catch (DataAccessException e) {
+                log.warn("Lote da importação de produtos recusado ({}); regravando linha a linha",
+                        e.getMostSpecificCause().getMessage());
+                gravarIndividualmente();
+            }
+            novos.clear();
+            alterados.clear();
+        }
+
+        private void gravarIndividualmente() {
+            for (Linha linha : novos) {
+                if (gravar(linha, SQL_INSERIR, linha.parametrosInsercao())) {
+                    resultado.setInseridos(resultado.getInseridos() + 1);
+                }
+            }
+            for (Linha linha : alterados) {
+                if (gravar(linha, SQL_ATUALIZAR, linha.parametrosAtualizacao())) {
+                    resultado.setAtualizados(resultado.getAtualizados() + 1);
+                }
+            }
+        }
+
+        private boolean gravar(Linha linha, String sql, Object[] parametros) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql, parametros));
+                return true;
+            } catch (DataAccessException e) {
+                rejeitar(linha.numero(), linha.produto().getNome(),
+                        "Recusado pelo banco: " + e.getMostSpecificCause().getMessage());
+                return false;
+            }
+        }
+    }
+
+    private record Linha(long numero, Produto produto) {
+
+        private Object[] parametrosInsercao() {
+            return new Object[]{produto.getNome(), produto.getCategoria(), produto.getPreco(),
+                    produto.getQuantidadeEstoque(), Timestamp.valueOf(produto.getCriadoEm())};
+        }
+
+        private Object[] parametrosAtualizacao() {
+            return new Object[]{produto.getCategoria(), produto.getPreco(), produto.getId()};
+        }
+    }
+
+    // Mesmas constraints do POST /produtos; mensagens na ordem dos campos
+    private String validar(Produto produto) {
+        return validator.validate(produto).stream()
+                .sorted(Comparator.comparing(violacao -> violacao.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.collectingAndThen(Collectors.joining("; "), erros -> erros.isEmpty() ? null : erros));
+    }
+
+    // ---------------------------------------------------------------------
+    // Formatos
+    // ---------------------------------------------------------------------
+    @FunctionalInterface
+    private interface LeitorLinha {
+        Produto ler(String linha) throws LinhaInvalidaException;
+    }
+
+    private static final class LinhaInvalidaException extends Exception {
+
+        private final String nome;
+
+        private LinhaInvalidaException(String nome, String mensagem) {
+            super(mensagem);
+            this.nome = nome;
+        }
+    }
+
+    // NDJSON: um objeto Produto por linha; id e criadoEm enviados são ignorados
+    private Produto lerJson(String linha) throws LinhaInvalidaException {
+        try {
+            Produto produto = objectMapper.readValue(linha, Produto.class);
+            produto.setId(null);
+            produto.setCriadoEm(LocalDateTime.now());
+            return produto;
+        } catch (JsonProcessingException e) {
+            throw new LinhaInvalidaException(null, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    // CSV: cabeçalho obrigatório com as colunas nome, categoria, preco e quantidadeEstoque
+    // (em qualquer ordem). Separador "," ou ";" (o do cabeçalho); com ";" o preço pode vir
+    // com vírgula decimal. Campos entre aspas podem conter o separador, mas não quebra de linha.
+    private LeitorLinha leitorCsv(String cabecalho) {
+        if (cabecalho == null || cabecalho.isBlank()) {
+            throw new IllegalArgumentException("O CSV deve começar com o cabeçalho: " + String.join(",", COLUNAS_CSV));
+        }
+        char separador = cabecalho.indexOf(';') >= 0 && cabecalho.indexOf(',') < 0 ? ';' : ',';
+        List<String> colunas = dividirCsv(cabecalho.replace("\uFEFF", ""), separador);
+
+        Map<String, Integer> posicoes = new HashMap<>();
+        for (int i = 0; i < colunas.size(); i++) {
+            posicoes.put(colunas.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> faltando = COLUNAS_CSV.stream()
+                .filter(coluna -> !posicoes.containsKey(coluna.toLowerCase(Locale.ROOT)))
+                .toList();
+        if (!faltando.isEmpty()) {
+            throw new IllegalArgumentException("Colunas ausentes no cabeçalho do CSV: " + String.join(",", faltando));
+        }
+        int pNome = posicoes.get("nome");
+        int pCategoria = posicoes.get("categoria");
+        int pPreco = posicoes.get("preco");
+        int pQuantidade = posicoes.get("quantidadeestoque");
+
+        return linha -> {
+            List<String> campos = dividirCsv(linha, separador);
+            String nome = campo(campos, pNome);
+            Produto produto = new Produto();
+            produto.setNome(nome);
+            produto.setCategoria(campo(campos, pCategoria));
+            produto.setPreco(decimal(nome, campo(campos, pPreco), separador));
+            produto.setQuantidadeEstoque(inteiro(nome, campo(campos, pQuantidade)));
+            produto.setCriadoEm(LocalDateTime.now());
+            return produto;
+        };
+    }
+
+    private static String campo(List<String> campos, int posicao) {
+        if (posicao >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(posicao).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static BigDecimal decimal(String nome, String valor, char separador) throws LinhaInvalidaException {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(separador == ';' ? valor.replace(',', '.') : valor);
+        } catch (NumberFormatException e) {
+            throw new LinhaInvalidaException(nome, "Preço inválido: '" + valor + "'.");
+        }
+    }
+
+    private static Integer inteiro(String nome, String valor) throws LinhaInvalidaException {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new LinhaInvalidaException(nome, "Quantidade inválida: '" + valor + "'.");
+        }
+    }
+
+    static List<String> dividirCsv(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
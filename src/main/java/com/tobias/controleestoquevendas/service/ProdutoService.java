@@ -1,50 +1,131 @@
 package com.tobias.controleestoquevendas.service;
 
+import com.tobias.controleestoquevendas.dto.CategoriaResumoDTO;
+import com.tobias.controleestoquevendas.dto.PaginaCursorDTO;
 import com.tobias.controleestoquevendas.model.Produto;
 import com.tobias.controleestoquevendas.repository.ProdutoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ProdutoService {
 
+    // Campos aceitos em ?sort= nas listagens de produtos
+    public static final Set<String> CAMPOS_ORDENACAO = CatalogoProdutos.ORDENACOES.keySet();
+
     @Autowired
     private ProdutoRepository repository;
 
+    @Autowired
+    private EstoqueLedger estoqueLedger;
+
+    // Listagem, busca por id e por categoria vêm do catálogo em memória
+    @Autowired
+    private CatalogoProdutos catalogo;
+
+    @Autowired
+    private AutocompleteProdutos autocomplete;
+
+    @Autowired
+    private FiltrosCadastro filtros;
+
     // Create
+    @Transactional
     public Produto criarProduto(Produto produto) {
-        return repository.save(produto);
+        filtros.nomesProduto().adicionar(produto.getNome());
+        Produto novo = repository.save(produto);
+        catalogo.atualizarAposCommit(novo);
+        autocomplete.atualizarAposCommit(novo.getId(), novo.getNome());
+        return novo;
+    }
+
+    // ETags (versões do catálogo): lidos antes dos dados
+    public String etagProdutos() {
+        return catalogo.etagLista();
+    }
+
+    public String etagProduto(Long id) {
+        return catalogo.etag(id);
     }
 
-    // Read All
+    // Nome já cadastrado? O filtro responde o "não" sem consultar o banco
+    public boolean existeNome(String nome) {
+        return filtros.nomesProduto().podeExistir(nome) && repository.existsByNome(nome);
+    }
+
+    // Read All (sem limite: somente para a exportação em streaming)
     public List<Produto> listarProdutos() {
-        return repository.findAll();
+        return catalogo.listar();
+    }
+
+    // Read All paginado (offset)
+    public Page<Produto> listarProdutosPaginado(Pageable pageable) {
+        return catalogo.pagina(pageable);
+    }
+
+    // Read All por cursor (keyset): id > apos, em ordem de id
+    public PaginaCursorDTO<Produto> listarProdutosApos(Long apos, int tamanho) {
+        // tamanho + 1: o item extra só indica se existe próxima página
+        return PaginaCursorDTO.porId(catalogo.aposId(apos, tamanho + 1), tamanho, Produto::getId);
     }
 
     // Read One (por ID)
     public Optional<Produto> buscarPorId(Long id) {
-        return repository.findById(id);
+        return catalogo.buscarPorId(id);
+    }
+
+    // Read (por trecho do nome): índice de trigramas do catálogo, os "limite" mais relevantes
+    public List<Produto> buscarPorNome(String nome, int limite) {
+        return catalogo.buscarPorNome(nome, limite);
+    }
+
+    // Autocompletar: nomes com uma palavra começando pelo prefixo, mais vendidos primeiro
+    public List<Produto> autocompletar(String prefixo, int limite) {
+        return autocomplete.sugerir(prefixo, limite);
+    }
+
+    public int maximoSugestoes() {
+        return autocomplete.maximoSugestoes();
     }
 
-    // Read One (por nome)
-    public List<Produto> buscarPorNome(String nome) {
-        return repository.findByNomeContainingIgnoreCase(nome);
+    // Facetas: produtos, estoque e valor em estoque por categoria
+    public List<CategoriaResumoDTO> resumoPorCategoria() {
+        return catalogo.resumoPorCategoria();
     }
 
     public List<Produto> buscarPorCategoria(String categoria) {
-        return repository.findByCategoria(categoria);
+        return catalogo.buscarPorCategoria(categoria);
     }
 
     // Update
+    @Transactional
     public Produto atualizarProduto(Produto produto) {
-        return repository.save(produto);
+        // O estoque informado substitui o da coluna: baixas pendentes do ledger
+        // são absorvidas pela contagem nova, e o saldo em memória é relido depois do commit.
+        if (estoqueLedger.gerencia(produto.getId())) {
+            estoqueLedger.absorverPendentes(produto.getId());
+            estoqueLedger.invalidarAposCommit(produto.getId());
+        }
+        filtros.nomesProduto().adicionar(produto.getNome());
+        Produto atualizado = repository.save(produto);
+        catalogo.atualizarAposCommit(atualizado);
+        autocomplete.atualizarAposCommit(atualizado.getId(), atualizado.getNome());
+        return atualizado;
     }
 
     // Delete
+    @Transactional
     public void deletarProduto(Long id) {
         repository.deleteById(id);
+        estoqueLedger.invalidarAposCommit(id);
+        catalogo.removerAposCommit(id);
+        autocomplete.removerAposCommit(id);
     }
 }
@@ -0,0 +1,118 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.cache.CacheExpiravel;
+import com.tobias.controleestoquevendas.cache.FiltroBloom;
+import com.tobias.controleestoquevendas.model.TokenRevogado;
+import com.tobias.controleestoquevendas.repository.TokenRevogadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ==============================================
+// REVOGAÇÃO DE TOKENS (tabela tokens_revogados + filtro de Bloom em memória)
+//
+// O caso comum (token não revogado) é respondido pelo filtro, sem ir ao banco.
+// Só um "talvez" do filtro (token revogado ou falso positivo) consulta a tabela,
+// e o resultado fica num cache curto.
+//
+// O filtro é remontado periodicamente a partir da tabela: assim recebe as
+// revogações feitas em outras instâncias e descarta os tokens já expirados.
+// Nesse intervalo, uma revogação feita em outra instância ainda não é vista aqui.
+//
+// Configuração:
+//   seguranca.revogacao.tokens-esperados=10000    -> dimensiona o filtro
+//   seguranca.revogacao.taxa-falso-positivo=0.001
+//   seguranca.revogacao.reconstrucao-ms=300000
+// ==============================================
+@Service
+public class RevogacaoTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevogacaoTokenService.class);
+
+    private final TokenRevogadoRepository repository;
+    private final long tokensEsperados;
+    private final double taxaFalsoPositivo;
+
+    private volatile FiltroBloom filtro;
+
+    // Revogados nesta instância desde o início da última reconstrução
+    // (não podem se perder na troca do filtro)
+    private final Set<String> recentes = ConcurrentHashMap.newKeySet();
+
+    // Resposta do banco para os "talvez" do filtro
+    private final CacheExpiravel<String, Boolean> confirmados;
+
+    public RevogacaoTokenService(TokenRevogadoRepository repository,
+                                 @Value("${seguranca.revogacao.tokens-esperados:10000}") long tokensEsperados,
+                                 @Value("${seguranca.revogacao.taxa-falso-positivo:0.001}") double taxaFalsoPositivo) {
+        this.repository = repository;
+        this.tokensEsperados = tokensEsperados;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.filtro = new FiltroBloom(tokensEsperados, taxaFalsoPositivo);
+        this.confirmados = new CacheExpiravel<>(1000, Duration.ofMinutes(1));
+    }
+
+    // Chamado a cada requisição autenticada (digest = SHA-256 do token)
+    public boolean estaRevogado(String digest) {
+        if (!filtro.podeConter(digest)) {
+            return false;
+        }
+        Boolean revogado = confirmados.get(digest);
+        if (revogado == null) {
+            revogado = repository.existsById(digest);
+            confirmados.put(digest, revogado);
+        }
+        return revogado;
+    }
+
+    @Transactional
+    public void revogar(String digest, String username, Date expiraEm) {
+        LocalDateTime expiracao = LocalDateTime.ofInstant(expiraEm.toInstant(), ZoneId.systemDefault());
+        repository.save(new TokenRevogado(digest, username, expiracao, LocalDateTime.now()));
+
+        // Um bit a mais no filtro, mesmo se a transação falhar, só custa uma consulta
+        recentes.add(digest);
+        filtro.adicionar(digest);
+        confirmados.put(digest, Boolean.TRUE);
+    }
+
+    // ---------------------------------------------------------------------
+    // Remonta o filtro a partir da tabela (também na subida da aplicação)
+    // ---------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${seguranca.revogacao.reconstrucao-ms:300000}")
+    @Transactional
+    public void reconstruirFiltro() {
+        Set<String> recentesAntes = new HashSet<>(recentes);
+
+        LocalDateTime agora = LocalDateTime.now();
+        repository.deleteExpirados(agora);
+        List<String> ativos = repository.findDigestsAtivos(agora);
+
+        // Nunca menor que o configurado; com folga se a tabela já passou do esperado
+        FiltroBloom novo = new FiltroBloom(Math.max(tokensEsperados, ativos.size() * 2L), taxaFalsoPositivo);
+        ativos.forEach(novo::adicionar);
+        filtro = novo;
+
+        // Revogações que chegaram durante a leitura entram no filtro novo
+        recentes.forEach(novo::adicionar);
+        recentes.removeAll(recentesAntes);
+        confirmados.clear();
+
+        if (ativos.size() > tokensEsperados) {
+            log.warn("{} tokens revogados ativos, acima dos {} esperados (seguranca.revogacao.tokens-esperados)",
+                    ativos.size(), tokensEsperados);
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package com.tobias.controleestoquevendas.service;
 
+import com.tobias.controleestoquevendas.cache.CacheExpiravel;
+import com.tobias.controleestoquevendas.exception.TokenRevogadoException;
+import com.tobias.controleestoquevendas.model.User;
 import com.tobias.controleestoquevendas.security.CustomUserDetails;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -20,6 +32,27 @@ public class TokenService {
     private static final String SECRET_KEY = "mysecretkeymysecretkeymysecretkeymysecretkeymymymy";
     private static final long EXPIRATION_TIME = 86400000; // 24 hours
 
+    // Chave e parser montados uma vez: antes cada chamada decodificava o SECRET_KEY
+    // (Base64, como o signWith/setSigningKey com String fazem) e criava um parser novo.
+    // Mesmos bytes de chave e mesmo algoritmo: tokens já emitidos continuam válidos.
+    // O JwtParser é imutável e pode ser compartilhado entre threads.
+    private static final Key SIGNING_KEY =
+            new SecretKeySpec(Decoders.BASE64.decode(SECRET_KEY), SignatureAlgorithm.HS256.getJcaName());
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SIGNING_KEY).build();
+
+    // Authentication já montada por token (chave = SHA-256 do token, nunca o token em si).
+    // O mesmo token chega milhares de vezes por dia do PDV: só a primeira requisição
+    // paga o parse e a verificação da assinatura. A entrada expira junto com o token.
+    private final CacheExpiravel<String, Authentication> autenticacoes;
+
+    private final RevogacaoTokenService revogacaoTokenService;
+
+    public TokenService(@Value("${seguranca.token.cache.capacidade:10000}") int capacidadeCache,
+                        RevogacaoTokenService revogacaoTokenService) {
+        this.autenticacoes = new CacheExpiravel<>(capacidadeCache, Duration.ofMillis(EXPIRATION_TIME));
+        this.revogacaoTokenService = revogacaoTokenService;
+    }
+
     public String generateToken(Authentication authentication) {
 
         // CORREÇÃO: Faça o cast para o seu objeto CustomUserDetails
@@ -39,16 +72,14 @@ public class TokenService {
                 .claim("roles", roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS256)
                 .compact();
     }
 
 
     public String validateToken(String token) {
         try {
-            Jws<Claims> claims = Jwts.parser()
-                    .setSigningKey(SECRET_KEY)
-                    .parseClaimsJws(token);
+            Jws<Claims> claims = PARSER.parseClaimsJws(token);
             return claims.getBody().getSubject();
         } catch (JwtException e) {
             return null;
@@ -56,9 +87,44 @@ public class TokenService {
     }
 
     public Authentication getAuthentication(String token) {
-        Jws<Claims> claims = Jwts.parser()
-                .setSigningKey(SECRET_KEY)
-                .parseClaimsJws(token);
+        String chave = digest(token);
+
+        // Filtro de Bloom em memória: o caso comum (não revogado) não vai ao banco
+        if (revogacaoTokenService.estaRevogado(chave)) {
+            autenticacoes.remove(chave);
+            throw new TokenRevogadoException("Token revogado");
+        }
+
+        Authentication emCache = autenticacoes.get(chave);
+        if (emCache != null) {
+            return emCache;
+        }
+
+        Jws<Claims> claims = PARSER.parseClaimsJws(token);
+
+        Authentication authentication = criarAuthentication(claims);
+
+        Date expiracao = claims.getBody().getExpiration();
+        if (expiracao != null) {
+            autenticacoes.put(chave, authentication, expiracao.getTime());
+        } else {
+            autenticacoes.put(chave, authentication);
+        }
+        return authentication;
+    }
+
+    // ---------------------------------------------------------------------
+    // Revogação (logout / gerente): o token passa a ser recusado até expirar.
+    // Token inválido ou já expirado lança JwtException (não há o que revogar).
+    // ---------------------------------------------------------------------
+    public void revogar(String token) {
+        Claims claims = PARSER.parseClaimsJws(token).getBody();
+        String chave = digest(token);
+        revogacaoTokenService.revogar(chave, claims.getSubject(), claims.getExpiration());
+        autenticacoes.remove(chave);
+    }
+
+    private Authentication criarAuthentication(Jws<Claims> claims) {
 
         String username = claims.getBody().getSubject();
 
@@ -81,7 +147,28 @@ public class TokenService {
                 .map(SimpleGrantedAuthority::new)
                 .toList();
 
-        return new UsernamePasswordAuthenticationToken(username, null, authorities);
+        // Principal montado só com os claims do token (id, username, role):
+        // os controllers recebem o id do vendedor sem consultar a tabela users
+        Object idClaim = claims.getBody().get("id");
+        Long userId = idClaim instanceof Number numero ? numero.longValue() : null;
+        // Sem perfil (ou sem id) o principal quebraria em cada checagem de acesso (500):
+        // o token é recusado como inválido e o filtro conta a falha
+        if (roles.isEmpty() || userId == null) {
+            throw new JwtException("Token sem os claims roles/id");
+        }
+        String role = roles.get(0);
+        CustomUserDetails principal = new CustomUserDetails(new User(userId, username, null, role));
+
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
 
 }
@@ -0,0 +1,77 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.dto.TotalVendasPeriodoDTO;
+import com.tobias.controleestoquevendas.model.Venda;
+import com.tobias.controleestoquevendas.model.VendaTotalVendedor;
+import com.tobias.controleestoquevendas.repository.VendaTotalVendedorRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ==============================================
+// TOTAIS DE VENDAS POR VENDEDOR (tabela vendas_totais_vendedor)
+// Atualizados pelo VendaService dentro da transação da própria venda.
+// ==============================================
+@Service
+public class TotalVendasService {
+
+    private final VendaTotalVendedorRepository repository;
+
+    public TotalVendasService(VendaTotalVendedorRepository repository) {
+        this.repository = repository;
+    }
+
+    // ---------------------------------------------------------------------
+    // ESCRITA: chamada na transação da venda
+    // ---------------------------------------------------------------------
+    public void somarVenda(Venda venda) {
+        acumular(venda.getVendedor().getId(), venda.getDataVenda().toLocalDate(), 1, venda.getValorTotal());
+    }
+
+    public void subtrairVenda(Long vendedorId, LocalDate dia, BigDecimal valorTotal) {
+        acumular(vendedorId, dia, -1, valorTotal.negate());
+    }
+
+    public void acumular(Long vendedorId, LocalDate dia, long quantidadeVendas, BigDecimal valorTotal) {
+        repository.acumular(vendedorId, dia, quantidadeVendas, valorTotal);
+    }
+
+    // ---------------------------------------------------------------------
+    // LEITURA
+    // ---------------------------------------------------------------------
+    @Transactional(readOnly = true)
+    public BigDecimal valorTotal(Long vendedorId) {
+        return repository.somarValorTotal(vendedorId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TotalVendasPeriodoDTO> totaisDiarios(Long vendedorId, LocalDate dataInicial, LocalDate dataFinal) {
+        List<TotalVendasPeriodoDTO> totais = new ArrayList<>();
+        for (VendaTotalVendedor dia : repository.findPorPeriodo(vendedorId, dataInicial, dataFinal)) {
+            totais.add(new TotalVendasPeriodoDTO(
+                    dia.getId().getDia().toString(), dia.getQuantidadeVendas(), dia.getValorTotal()));
+        }
+        return totais;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TotalVendasPeriodoDTO> totaisMensais(Long vendedorId, LocalDate dataInicial, LocalDate dataFinal) {
+        // As linhas já vêm ordenadas por dia: o LinkedHashMap mantém os meses em ordem
+        Map<YearMonth, TotalVendasPeriodoDTO> meses = new LinkedHashMap<>();
+        for (VendaTotalVendedor dia : repository.findPorPeriodo(vendedorId, dataInicial, dataFinal)) {
+            YearMonth mes = YearMonth.from(dia.getId().getDia());
+            TotalVendasPeriodoDTO total = meses.computeIfAbsent(mes,
+                    m -> new TotalVendasPeriodoDTO(m.toString(), 0, BigDecimal.ZERO));
+            total.setQuantidadeVendas(total.getQuantidadeVendas() + dia.getQuantidadeVendas());
+            total.setValorTotal(total.getValorTotal().add(dia.getValorTotal()));
+        }
+        return new ArrayList<>(meses.values());
+    }
+}
@@ -1,28 +1,69 @@
 package com.tobias.controleestoquevendas.service;
 
+import com.tobias.controleestoquevendas.cache.CacheExpiravel;
 import com.tobias.controleestoquevendas.model.User;
 import com.tobias.controleestoquevendas.repository.UserRepository;
 import com.tobias.controleestoquevendas.security.CustomUserDetails;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.Optional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository repository;
 
-    public UserDetailsServiceImpl(UserRepository repository) {
+    // Usuários por username (limite de tamanho + TTL). Só guarda usuários encontrados:
+    // um username inexistente sempre consulta o banco.
+    private final CacheExpiravel<String, User> usuarios;
+
+    public UserDetailsServiceImpl(UserRepository repository,
+                                  @Value("${seguranca.usuarios.cache.capacidade:1000}") int capacidadeCache,
+                                  @Value("${seguranca.usuarios.cache.ttl:10m}") Duration ttlCache) {
         this.repository = repository;
+        this.usuarios = new CacheExpiravel<>(capacidadeCache, ttlCache);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = repository.findByUsername(username)
+        User user = buscarUsuario(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
         // Retorna o objeto customizado que contém o ID
         return new CustomUserDetails(user);
     }
+
+    // Busca por username passando pelo cache; para qualquer código que precise do usuário
+    public Optional<User> buscarUsuario(String username) {
+        User emCache = usuarios.get(username);
+        if (emCache != null) {
+            return Optional.of(emCache);
+        }
+        Optional<User> user = repository.findByUsername(username);
+        user.ifPresent(u -> usuarios.put(username, u));
+        return user;
+    }
+
+    // Usuário criado ou alterado (senha, role): a próxima busca relê do banco
+    public void invalidar(String username) {
+        usuarios.remove(username);
+    }
+
+    // Chamado pelo DaoAuthenticationProvider após um login correto quando o hash
+    // gravado usa um custo BCrypt menor que o configurado (seguranca.bcrypt.forca):
+    // a senha é gravada de novo com o custo atual, sem o usuário perceber.
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = repository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPassword(newPassword);
+        repository.save(user);
+        invalidar(user.getUsername());
+        return new CustomUserDetails(user);
+    }
 }
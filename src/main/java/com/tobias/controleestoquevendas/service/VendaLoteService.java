@@ -0,0 +1,298 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.dto.ItemVendaRequestDTO;
+import com.tobias.controleestoquevendas.dto.VendaLoteResultadoDTO;
+import com.tobias.controleestoquevendas.dto.VendaRequestDTO;
+import com.tobias.controleestoquevendas.model.*;
+import com.tobias.controleestoquevendas.repository.ClienteRepository;
+import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import com.tobias.controleestoquevendas.repository.UserRepository;
+import com.tobias.controleestoquevendas.repository.VendaRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// ==============================================
+// INGESTÃO EM LOTE DE VENDAS (POST /vendas/lote)
+//
+// Usado pelos terminais de PDV que ficaram offline. As vendas são processadas em
+// blocos; cada bloco é uma transação que:
+//   1. resolve clientes e produtos do bloco com uma consulta cada (IN);
+//   2. valida cada venda contra o estoque lido, descartando só as que falham;
+//   3. aplica a baixa agrupada por produto (um UPDATE condicional por produto);
+//   4. grava as vendas aceitas (itens saem em lote JDBC no flush).
+// Se a baixa agrupada falhar por concorrência (estoque consumido por outra venda
+// entre a leitura e o UPDATE), o bloco é desfeito e reprocessado venda a venda
+// pelo VendaService, cada uma na sua transação.
+// ==============================================
+@Service
+public class VendaLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(VendaLoteService.class);
+
+    private final VendaService vendaService;
+    private final VendaRepository vendaRepository;
+    private final ClienteRepository clienteRepository;
+    private final ProdutoRepository produtoRepository;
+    private final UserRepository userRepository;
+    private final EstoqueLedger estoqueLedger;
+    private final CatalogoProdutos catalogoProdutos;
+    private final TotalVendasService totalVendasService;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoBloco;
+
+    public VendaLoteService(VendaService vendaService,
+                            VendaRepository vendaRepository,
+                            ClienteRepository clienteRepository,
+                            ProdutoRepository produtoRepository,
+                            UserRepository userRepository,
+                            EstoqueLedger estoqueLedger,
+                            CatalogoProdutos catalogoProdutos,
+                            TotalVendasService totalVendasService,
+                            Validator validator,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${vendas.lote.tamanho-bloco:200}") int tamanhoBloco) {
+        this.vendaService = vendaService;
+        this.vendaRepository = vendaRepository;
+        this.clienteRepository = clienteRepository;
+        this.produtoRepository = produtoRepository;
+        this.userRepository = userRepository;
+        this.estoqueLedger = estoqueLedger;
+        this.catalogoProdutos = catalogoProdutos;
+        this.totalVendasService = totalVendasService;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    public List<VendaLoteResultadoDTO> criarVendas(List<VendaRequestDTO> vendasDTO, Long vendedorId) {
+        List<VendaLoteResultadoDTO> resultados = new ArrayList<>(vendasDTO.size());
+
+        if (!userRepository.existsById(vendedorId)) {
+            for (int i = 0; i < vendasDTO.size(); i++) {
+                resultados.add(VendaLoteResultadoDTO.falha(i, "Vendedor não encontrado com ID: " + vendedorId));
+            }
+            return resultados;
+        }
+
+        for (int inicio = 0; inicio < vendasDTO.size(); inicio += tamanhoBloco) {
+            int fim = Math.min(inicio + tamanhoBloco, vendasDTO.size());
+            resultados.addAll(processarBloco(vendasDTO.subList(inicio, fim), inicio, vendedorId));
+        }
+        return resultados;
+    }
+
+    private List<VendaLoteResultadoDTO> processarBloco(List<VendaRequestDTO> bloco, int deslocamento, Long vendedorId) {
+        try {
+            return transactionTemplate.execute(status -> gravarBloco(bloco, deslocamento, vendedorId));
+        } catch (EstoqueConcorrenteException e) {
+            log.debug("Bloco a partir da venda {} reprocessado individualmente: {}", deslocamento, e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar o bloco a partir da venda {}; reprocessando individualmente", deslocamento, e);
+        }
+        return processarIndividualmente(bloco, deslocamento, vendedorId);
+    }
+
+    // ---------------------------------------------------------------------
+    // CAMINHO RÁPIDO: bloco inteiro numa transação, consultas por conjunto
+    // ---------------------------------------------------------------------
+    private List<VendaLoteResultadoDTO> gravarBloco(List<VendaRequestDTO> bloco, int deslocamento, Long vendedorId) {
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(idsClientes(bloco)).stream()
+                .collect(Collectors.toMap(Cliente::getId, Function.identity()));
+        Map<Long, Produto> produtos = produtoRepository.findAllById(idsProdutos(bloco)).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        User vendedor = userRepository.getReferenceById(vendedorId);
+
+        // Estoque disponível por produto, consumido em memória à medida que as vendas são aceitas
+        Map<Long, Integer> disponivel = new HashMap<>();
+        for (Produto produto : produtos.values()) {
+            int saldo = estoqueLedger.gerencia(produto.getId())
+                    ? estoqueLedger.consultar(produto.getId()).orElse(0)
+                    : produto.getQuantidadeEstoque();
+            disponivel.put(produto.getId(), saldo);
+        }
+
+        VendaLoteResultadoDTO[] resultados = new VendaLoteResultadoDTO[bloco.size()];
+        List<Venda> vendasAceitas = new ArrayList<>();
+        List<Integer> posicoesAceitas = new ArrayList<>();
+        Map<Long, Integer> baixas = new TreeMap<>(); // ordem de ID: evita deadlock
+
+        for (int i = 0; i < bloco.size(); i++) {
+            VendaRequestDTO vendaDTO = bloco.get(i);
+            String erro = validar(vendaDTO, clientes, produtos, disponivel);
+            if (erro != null) {
+                resultados[i] = VendaLoteResultadoDTO.falha(deslocamento + i, erro);
+                continue;
+            }
+
+            for (ItemVendaRequestDTO item : vendaDTO.getItens()) {
+                disponivel.merge(item.getProdutoId(), -item.getQuantidade(), Integer::sum);
+                baixas.merge(item.getProdutoId(), item.getQuantidade(), Integer::sum);
+            }
+            vendasAceitas.add(montarVenda(vendaDTO, clientes.get(vendaDTO.getClienteId()), vendedor, produtos));
+            posicoesAceitas.add(i);
+        }
+
+        // Baixa agrupada: um UPDATE condicional (ou reserva no ledger) por produto
+        baixas.forEach((produtoId, quantidade) -> {
+            boolean baixou = estoqueLedger.gerencia(produtoId)
+                    ? estoqueLedger.reservar(produtoId, quantidade)
+                    : produtoRepository.baixarEstoque(produtoId, quantidade) > 0;
+            if (!baixou) {
+                throw new EstoqueConcorrenteException("Estoque do produto " + produtoId + " alterado durante o lote");
+            }
+            if (!estoqueLedger.gerencia(produtoId)) {
+                catalogoProdutos.ajustarEstoqueAposCommit(produtoId, -quantidade);
+            }
+        });
+
+        vendaRepository.saveAll(vendasAceitas);
+        acumularTotais(vendedorId, vendasAceitas);
+
+        for (int j = 0; j < vendasAceitas.size(); j++) {
+            int i = posicoesAceitas.get(j);
+            resultados[i] = VendaLoteResultadoDTO.criada(deslocamento + i, vendasAceitas.get(j).getId());
+        }
+        return Arrays.asList(resultados);
+    }
+
+    // ---------------------------------------------------------------------
+    // CAMINHO LENTO: uma transação por venda (mesma regra do POST /vendas)
+    // ---------------------------------------------------------------------
+    private List<VendaLoteResultadoDTO> processarIndividualmente(List<VendaRequestDTO> bloco, int deslocamento, Long vendedorId) {
+        List<VendaLoteResultadoDTO> resultados = new ArrayList<>(bloco.size());
+        for (int i = 0; i < bloco.size(); i++) {
+            VendaRequestDTO vendaDTO = bloco.get(i);
+            String erro = validarCampos(vendaDTO);
+            if (erro != null) {
+                resultados.add(VendaLoteResultadoDTO.falha(deslocamento + i, erro));
+                continue;
+            }
+            try {
+                Venda venda = vendaService.criarVenda(vendaDTO, vendedorId);
+                resultados.add(VendaLoteResultadoDTO.criada(deslocamento + i, venda.getId()));
+            } catch (RuntimeException e) {
+                resultados.add(VendaLoteResultadoDTO.falha(deslocamento + i, e.getMessage()));
+            }
+        }
+        return resultados;
+    }
+
+    // Retorna a mensagem de erro da venda, ou null se ela pode ser gravada
+    private String validar(VendaRequestDTO vendaDTO, Map<Long, Cliente> clientes,
+                           Map<Long, Produto> produtos, Map<Long, Integer> disponivel) {
+        String erro = validarCampos(vendaDTO);
+        if (erro != null) {
+            return erro;
+        }
+        if (!clientes.containsKey(vendaDTO.getClienteId())) {
+            return "Cliente não encontrado com ID: " + vendaDTO.getClienteId();
+        }
+
+        Set<Long> vistos = new HashSet<>();
+        for (ItemVendaRequestDTO item : vendaDTO.getItens()) {
+            if (item == null) {
+                return "A venda contém um item vazio.";
+            }
+            Produto produto = produtos.get(item.getProdutoId());
+            if (produto == null) {
+                return "Produto não encontrado com ID: " + item.getProdutoId();
+            }
+            if (!vistos.add(produto.getId())) {
+                return "Produto repetido na venda: " + produto.getNome();
+            }
+            if (disponivel.get(produto.getId()) < item.getQuantidade()) {
+                return "Estoque insuficiente para o produto: " + produto.getNome();
+            }
+        }
+        return null;
+    }
+
+    // Mesmas anotações de VendaRequestDTO/ItemVendaRequestDTO usadas no POST /vendas
+    private String validarCampos(VendaRequestDTO vendaDTO) {
+        if (vendaDTO == null) {
+            return "Venda vazia.";
+        }
+        Set<ConstraintViolation<VendaRequestDTO>> violacoes = validator.validate(vendaDTO);
+        if (violacoes.isEmpty()) {
+            return null;
+        }
+        return violacoes.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(" "));
+    }
+
+    private Venda montarVenda(VendaRequestDTO vendaDTO, Cliente cliente, User vendedor, Map<Long, Produto> produtos) {
+        Venda venda = new Venda();
+        venda.setCliente(cliente);
+        venda.setVendedor(vendedor);
+
+        List<VendaProduto> itens = new ArrayList<>();
+        BigDecimal valorTotal = BigDecimal.ZERO;
+
+        for (ItemVendaRequestDTO itemDTO : vendaDTO.getItens()) {
+            Produto produto = produtos.get(itemDTO.getProdutoId());
+
+            VendaProduto item = new VendaProduto();
+            item.setId(new VendaProdutoId(null, produto.getId()));
+            item.setVenda(venda);
+            item.setProduto(produto);
+            item.setQuantidade(itemDTO.getQuantidade());
+            item.setPrecoUnitario(produto.getPreco());
+            item.setEstoqueAplicado(!estoqueLedger.gerencia(produto.getId()));
+            itens.add(item);
+
+            valorTotal = valorTotal.add(produto.getPreco().multiply(BigDecimal.valueOf(itemDTO.getQuantidade())));
+        }
+
+        venda.setItens(itens);
+        venda.setValorTotal(valorTotal);
+        return venda;
+    }
+
+    // Totais do vendedor: um UPSERT por dia do bloco, não por venda
+    private void acumularTotais(Long vendedorId, List<Venda> vendas) {
+        Map<LocalDate, List<Venda>> porDia = vendas.stream()
+                .collect(Collectors.groupingBy(v -> v.getDataVenda().toLocalDate()));
+        porDia.forEach((dia, vendasDoDia) -> totalVendasService.acumular(vendedorId, dia, vendasDoDia.size(),
+                vendasDoDia.stream().map(Venda::getValorTotal).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    private Set<Long> idsClientes(List<VendaRequestDTO> bloco) {
+        return bloco.stream()
+                .filter(Objects::nonNull)
+                .map(VendaRequestDTO::getClienteId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Long> idsProdutos(List<VendaRequestDTO> bloco) {
+        return bloco.stream()
+                .filter(v -> v != null && v.getItens() != null)
+                .flatMap(v -> v.getItens().stream())
+                .filter(Objects::nonNull)
+                .map(ItemVendaRequestDTO::getProdutoId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    // Estoque consumido por outra transação entre a leitura e a baixa do bloco
+    private static class EstoqueConcorrenteException extends RuntimeException {
+        EstoqueConcorrenteException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.tobias.controleestoquevendas.service;
 
 import com.tobias.controleestoquevendas.dto.ItemVendaRequestDTO;
+import com.tobias.controleestoquevendas.dto.PaginaCursorDTO;
+import com.tobias.controleestoquevendas.dto.VendaCursor;
 import com.tobias.controleestoquevendas.dto.VendaRequestDTO;
 import com.tobias.controleestoquevendas.dto.VendaResponseDTO;
 import com.tobias.controleestoquevendas.exception.EstoqueInsuficienteException;
 import com.tobias.controleestoquevendas.exception.ResourceNotFoundException;
 import com.tobias.controleestoquevendas.model.*;
 import com.tobias.controleestoquevendas.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 import java.math.BigDecimal;
@@ -20,11 +27,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class VendaService {
 
+    // Limite de ids por consulta IN ao carregar os itens de muitas vendas (relatório por período)
+    private static final int BLOCO_CARREGAMENTO_ITENS = 1000;
+
     @Autowired
     private VendaRepository vendaRepository;
 
@@ -40,12 +55,41 @@ public class VendaService {
     @Autowired
     private VendaProdutoRepository vendaProdutoRepository; // Necessário para exclusão de itens
 
+    @Autowired
+    private EstoqueLedger estoqueLedger;
+
+    @Autowired
+    private CatalogoProdutos catalogoProdutos;
+
+    @Autowired
+    private IdempotenciaVendaService idempotenciaVendaService;
+
+    @Autowired
+    private TotalVendasService totalVendasService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // ==============================================
     // 1. C - CREATE (Cria uma nova Venda)
     // Já estava implementado, mas revisado para clareza
     // ==============================================
     @Transactional
     public Venda criarVenda(VendaRequestDTO vendaDTO, Long vendedorId) {
+        return criarVenda(vendaDTO, vendedorId, null);
+    }
+
+    // Com Idempotency-Key: a chave é reservada antes de qualquer baixa de estoque,
+    // na mesma transação, e fica associada à venda criada.
+    @Transactional
+    public Venda criarVenda(VendaRequestDTO vendaDTO, Long vendedorId, String chaveIdempotencia) {
+
+        if (chaveIdempotencia != null) {
+            idempotenciaVendaService.reservar(chaveIdempotencia, vendedorId);
+        }
 
         Cliente cliente = clienteRepository.findById(vendaDTO.getClienteId())
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente não encontrado com ID: " + vendaDTO.getClienteId()));
@@ -58,7 +102,13 @@ public class VendaService {
         venda.setVendedor(vendedor);
 
         // O método processarItens é delegado para reutilização (PUT)
-        return processarItensDaVenda(venda, vendaDTO.getItens());
+        Venda vendaSalva = processarItensDaVenda(venda, vendaDTO.getItens());
+        totalVendasService.somarVenda(vendaSalva);
+
+        if (chaveIdempotencia != null) {
+            idempotenciaVendaService.concluir(chaveIdempotencia, vendedorId, vendaSalva);
+        }
+        return vendaSalva;
     }
 
     // ==============================================
@@ -71,58 +121,146 @@ public class VendaService {
     public Optional<Venda> buscarPorId(Long id) {
         return vendaRepository.findById(id);
     }
-    @Transactional
-    public Page<VendaResponseDTO> listarTodasVendasPaginado(Pageable pageable) {
-
-        // 1. Busque a página de entidades Venda (no JPA Repository)
-        Page<Venda> vendasPage = vendaRepository.findAll(pageable);
+    // comItens = false quando o cliente não pediu "itens" no ?fields=: a consulta dos itens nem é feita
+    @Transactional(readOnly = true)
+    public Page<VendaResponseDTO> listarTodasVendasPaginado(Pageable pageable, boolean comItens) {
+
+        // 1. Busque a página de entidades Venda (cliente e vendedor já juntos) e os itens da página
+        Page<Venda> vendasPage = vendaRepository.findPaginaComClienteEVendedor(pageable);
+        if (comItens) {
+            carregarItens(vendasPage.getContent());
+        }
 
         // 2. Mapeie a Page<Venda> para Page<VendaResponseDTO>
-        return vendasPage.map(VendaResponseDTO::new);
+        return vendasPage.map(venda -> new VendaResponseDTO(venda, comItens));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<VendaResponseDTO> listarVendasPorPeriodo(
             LocalDateTime dataInicial,
-            LocalDateTime dataFinal) {
+            LocalDateTime dataFinal,
+            boolean comItens) {
 
         // 1. Chame o novo método do Repository
-        List<Venda> vendasList = vendaRepository.findByDataVendaBetween(dataInicial, dataFinal);
+        List<Venda> vendasList = vendaRepository.findPorPeriodoComClienteEVendedor(dataInicial, dataFinal);
+        if (comItens) {
+            carregarItens(vendasList);
+        }
 
         // 2. Mapeie a List<Venda> para List<VendaResponseDTO>
         return vendasList.stream()
-                .map(VendaResponseDTO::new)
+                .map(venda -> new VendaResponseDTO(venda, comItens))
                 .collect(Collectors.toList());
     }
 
+    // Versão em streaming do relatório por período: percorre o período em blocos por
+    // chave (dataVenda, id), cada bloco numa transação curta e com contexto JPA próprio.
+    // A memória fica limitada a um bloco, qualquer que seja o tamanho do período.
+    public void percorrerVendasPorPeriodo(LocalDateTime dataInicial, LocalDateTime dataFinal, int tamanhoBloco,
+                                          boolean comItens, Consumer<List<VendaResponseDTO>> consumidor) {
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+
+        // Cursor inicial: tudo a partir de dataInicial (ids começam em 1)
+        LocalDateTime ultimaData = dataInicial;
+        Long ultimoId = 0L;
+
+        while (true) {
+            LocalDateTime data = ultimaData;
+            Long id = ultimoId;
+            List<Venda> bloco = leitura.execute(status -> {
+                List<Venda> vendas = vendaRepository.findBlocoPorPeriodo(
+                        dataInicial, dataFinal, data, id, PageRequest.of(0, tamanhoBloco));
+                if (comItens) {
+                    carregarItens(vendas);
+                }
+                return vendas;
+            });
+
+            if (bloco == null || bloco.isEmpty()) {
+                return;
+            }
+            consumidor.accept(bloco.stream().map(venda -> new VendaResponseDTO(venda, comItens)).toList());
+
+            if (bloco.size() < tamanhoBloco) {
+                return;
+            }
+            Venda ultima = bloco.get(bloco.size() - 1);
+            ultimaData = ultima.getDataVenda();
+            ultimoId = ultima.getId();
+        }
+    }
+
+    // ==============================================
+    // R - READ por cursor (keyset): (dataVenda, id) em ordem decrescente
+    // ==============================================
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<VendaResponseDTO> listarVendasPorCursor(VendaCursor cursor, int tamanho, boolean comItens) {
+        return paginaPorCursor(cursor, tamanho, comItens,
+                (c, limite) -> vendaRepository.findAntesDoCursor(c.dataVenda(), c.id(), limite));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<VendaResponseDTO> listarVendasPorVendedorPorCursor(Long vendedorId, VendaCursor cursor,
+                                                                             int tamanho, boolean comItens) {
+        return paginaPorCursor(cursor, tamanho, comItens,
+                (c, limite) -> vendaRepository.findPorVendedorAntesDoCursor(vendedorId, c.dataVenda(), c.id(), limite));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<VendaResponseDTO> listarVendasPorClientePorCursor(Long clienteId, VendaCursor cursor,
+                                                                            int tamanho, boolean comItens) {
+        return paginaPorCursor(cursor, tamanho, comItens,
+                (c, limite) -> vendaRepository.findPorClienteAntesDoCursor(clienteId, c.dataVenda(), c.id(), limite));
+    }
+
+    // Busca tamanho + 1 linhas: a linha extra só indica se existe próxima página
+    private PaginaCursorDTO<VendaResponseDTO> paginaPorCursor(VendaCursor cursor, int tamanho, boolean comItens,
+                                                              BiFunction<VendaCursor, Pageable, List<Venda>> consulta) {
+        PaginaCursorDTO<Venda> pagina = PaginaCursorDTO.deLinhas(consulta.apply(cursor, PageRequest.of(0, tamanho + 1)),
+                tamanho, ultima -> new VendaCursor(ultima.getDataVenda(), ultima.getId()).codificar());
+        if (comItens) {
+            carregarItens(pagina.getConteudo());
+        }
+        return pagina.map(venda -> new VendaResponseDTO(venda, comItens));
+    }
+
     // ==============================================
     // 3. R - READ (Listar por Vendedor)
     // ==============================================
-    public List<Venda> listarVendasPorVendedor(Long vendedorId) {
-        // Usa o Query Method definido no VendaRepository
-        return vendaRepository.findByVendedorId(vendedorId);
+    @Transactional(readOnly = true)
+    public List<VendaResponseDTO> listarVendasPorVendedor(Long vendedorId, boolean comItens) {
+        List<Venda> vendas = vendaRepository.findPorVendedorComClienteEVendedor(vendedorId);
+        if (comItens) {
+            carregarItens(vendas);
+        }
+        return vendas.stream()
+                .map(venda -> new VendaResponseDTO(venda, comItens))
+                .collect(Collectors.toList());
     }
 
     // ==============================================
     // 4. R - READ (Listar por Cliente)
     // ==============================================
-    @Transactional
-    public List<VendaResponseDTO> listarVendasPorCliente(Long clienteId) {
+    @Transactional(readOnly = true)
+    public List<VendaResponseDTO> listarVendasPorCliente(Long clienteId, boolean comItens) {
 
-        // 1. O Repositório deve retornar uma lista de Venda
-        List<Venda> vendasList = vendaRepository.findByClienteId(clienteId);
-        // Lembre-se que o findByClienteId deve estar no seu VendaRepository
+        // 1. O Repositório deve retornar uma lista de Venda (com cliente, vendedor e itens)
+        List<Venda> vendasList = vendaRepository.findPorClienteComClienteEVendedor(clienteId);
+        if (comItens) {
+            carregarItens(vendasList);
+        }
 
         // 2. Mapeia a lista de Venda para a lista de VendaResponseDTO
         return vendasList.stream()
-                .map(VendaResponseDTO::new)
+                .map(venda -> new VendaResponseDTO(venda, comItens))
                 .collect(Collectors.toList());
     }
 
-    @Transactional // Garante que as relações (Cliente, Vendedor, Itens) sejam carregadas.
+    @Transactional(readOnly = true) // Relações (Cliente, Vendedor, Itens) carregadas no mesmo SELECT
     public VendaResponseDTO buscarVendaPorId(Long id) {
 
-        Venda venda = vendaRepository.findById(id)
+        Venda venda = vendaRepository.findCompletaById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Venda não encontrada com ID: " + id));
 
         // Mapeia a entidade Venda para o DTO de resposta
@@ -131,15 +269,11 @@ public class VendaService {
 
     // ==============================================
     // 5. R - READ (Calcular Valor Total por Vendedor)
-    // **NOTA:** Este método idealmente usaria uma query otimizada no Repository.
-    // Para simplificar, faremos o cálculo em Java sobre a lista.
+    // Lido da tabela de totais por dia (vendas_totais_vendedor), mantida a cada
+    // criação/edição/exclusão de venda, em vez de carregar todas as vendas.
     // ==============================================
     public BigDecimal calcularValorTotalVendasPorVendedor(Long vendedorId) {
-        List<Venda> vendas = vendaRepository.findByVendedorId(vendedorId);
-
-        return vendas.stream()
-                .map(Venda::getValorTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return totalVendasService.valorTotal(vendedorId);
     }
 
     // ==============================================
@@ -158,46 +292,47 @@ public class VendaService {
         User vendedor = userRepository.findById(vendedorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Vendedor não encontrado com ID: " + vendedorId));
 
-        // Mapeia os itens antigos da venda por ID do Produto para fácil acesso
-        Map<Long, VendaProduto> itensAntigosMap = vendaExistente.getItens().stream()
-                .collect(Collectors.toMap(
-                        item -> item.getProduto().getId(),
-                        item -> item
-                ));
+        // Valores antigos para estornar do total do vendedor original
+        Long vendedorAntigoId = vendaExistente.getVendedor().getId();
+        BigDecimal valorAntigo = vendaExistente.getValorTotal();
+
+        // 1. CALCULA A DIFERENÇA DE ESTOQUE POR PRODUTO
+        // Se o valor for POSITIVO, é a quantidade que precisa ser RETIRADA do estoque.
+        // Se o valor for NEGATIVO, é a quantidade que precisa ser DEVOLVIDA ao estoque.
+        // Itens removidos da venda entram aqui com a quantidade antiga negativa.
+        Map<Long, Integer> ajustes = somarQuantidades(vendaDTO.getItens());
+        for (VendaProduto itemAntigo : vendaExistente.getItens()) {
+            ajustes.merge(itemAntigo.getProduto().getId(), -itemAntigo.getQuantidade(), Integer::sum);
+        }
+
+        // 2. APLICA OS AJUSTES DIRETAMENTE NO BANCO
+        // A retirada é condicional (WHERE quantidade_estoque >= ?), então duas vendas
+        // concorrentes não conseguem vender o mesmo estoque.
+        aplicarAjustesDeEstoque(vendaId, ajustes);
+
+        // Os produtos dos itens antigos já estão no contexto de persistência (EAGER) e os
+        // UPDATEs acima não passam por eles: relê o estoque para a resposta não sair desatualizada
+        for (VendaProduto itemAntigo : vendaExistente.getItens()) {
+            entityManager.refresh(itemAntigo.getProduto());
+        }
+
+        // 3. Produtos da requisição carregados em uma única consulta
+        Map<Long, Produto> produtos = carregarProdutos(vendaDTO.getItens());
 
         // Lista para armazenar os novos itens de VendaProduto a serem persistidos
         List<VendaProduto> novosItensVenda = new ArrayList<>();
         BigDecimal novoValorTotal = BigDecimal.ZERO;
 
-        // 1. Processa os itens na requisição (vendaDTO)
+        // 4. CRIA OS NOVOS ITENS DE VENDA
         for (ItemVendaRequestDTO itemDTO : vendaDTO.getItens()) {
 
-            Produto produto = produtoRepository.findById(itemDTO.getProdutoId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + itemDTO.getProdutoId()));
-
-            VendaProduto itemOriginal = itensAntigosMap.get(produto.getId());
-
-            int quantidadeAntiga = (itemOriginal != null) ? itemOriginal.getQuantidade() : 0;
-            int quantidadeNova = itemDTO.getQuantidade();
-
-            // 2. CALCULA A DIFERENÇA DE ESTOQUE
-            // Se o valor for POSITIVO, é a quantidade que precisa ser DEVOLVIDA ao estoque.
-            // Se o valor for NEGATIVO, é a quantidade que precisa ser RETIRADA do estoque.
-            int ajusteEstoque = quantidadeAntiga - quantidadeNova;
-
-            // 3. VERIFICA ESTOQUE (só é necessário verificar se a quantidade nova for MAIOR que a antiga)
-            if (ajusteEstoque < 0) { // Se o ajuste for negativo, significa que a venda aumentou
-                // O estoque atual + o ajuste (que é negativo) deve ser >= 0
-                if (produto.getQuantidadeEstoque() + ajusteEstoque < 0) {
-                    throw new EstoqueInsuficienteException("Estoque insuficiente para o produto: " + produto.getNome());
-                }
+            Produto produto = produtos.get(itemDTO.getProdutoId());
+            if (produto == null) {
+                throw new ResourceNotFoundException("Produto não encontrado com ID: " + itemDTO.getProdutoId());
             }
 
-            // 4. APLICA O AJUSTE E SALVA O PRODUTO
-            produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + ajusteEstoque);
-            produtoRepository.save(produto); // Persiste a alteração de estoque
+            int quantidadeNova = itemDTO.getQuantidade();
 
-            // 5. CRIA O NOVO ITEM DE VENDA
             VendaProduto vendaProduto = new VendaProduto();
             vendaProduto.setVenda(vendaExistente);
             vendaProduto.setProduto(produto);
@@ -207,25 +342,17 @@ public class VendaService {
 
             novosItensVenda.add(vendaProduto);
             novoValorTotal = novoValorTotal.add(produto.getPreco().multiply(BigDecimal.valueOf(quantidadeNova)));
-
-            // Remove o item do mapa para saber quais itens foram removidos da venda
-            itensAntigosMap.remove(produto.getId());
-        }
-
-        // 6. TRATA ITENS REMOVIDOS DA VENDA ORIGINAL
-        // Os itens que sobraram no 'itensAntigosMap' foram removidos da vendaDTO
-        for (VendaProduto itemRemovido : itensAntigosMap.values()) {
-            Produto produto = itemRemovido.getProduto();
-            // Devolve a quantidade TOTAL do item removido
-            produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + itemRemovido.getQuantidade());
-            produtoRepository.save(produto);
         }
 
-        // 7. ATUALIZA A VENDA EXISTENTE
+        // 5. ATUALIZA A VENDA EXISTENTE
         vendaExistente.setCliente(novoCliente);
         vendaExistente.setVendedor(vendedor);
         vendaExistente.setValorTotal(novoValorTotal);
 
+        // Totais por vendedor: sai do vendedor antigo, entra no atual (mesmo dia da venda)
+        totalVendasService.subtrairVenda(vendedorAntigoId, vendaExistente.getDataVenda().toLocalDate(), valorAntigo);
+        totalVendasService.somarVenda(vendaExistente);
+
         // **IMPORTANTE**: Limpa e adiciona os novos itens.
         // Isso garante que o Hibernate/JPA trate a remoção dos itens antigos
         // e a persistência dos novos (Requer @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
@@ -244,15 +371,23 @@ public class VendaService {
         Venda venda = vendaRepository.findById(vendaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Venda não encontrada com ID: " + vendaId));
 
+        // Baixas ainda pendentes no ledger precisam ir para produtos antes que os itens sumam
+        if (estoqueLedger.ativo()) {
+            estoqueLedger.aplicarPendentesDaVenda(vendaId);
+        }
+
         if (devolverEstoque) {
             // Devolve a quantidade ao estoque para cada item da venda
             for (VendaProduto item : venda.getItens()) {
-                Produto produto = item.getProduto();
-                produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + item.getQuantidade());
-                produtoRepository.save(produto);
+                produtoRepository.devolverEstoque(item.getProduto().getId(), item.getQuantidade());
+                estoqueLedger.invalidarAposCommit(item.getProduto().getId());
+                catalogoProdutos.ajustarEstoqueAposCommit(item.getProduto().getId(), item.getQuantidade());
             }
         }
 
+        totalVendasService.subtrairVenda(venda.getVendedor().getId(),
+                venda.getDataVenda().toLocalDate(), venda.getValorTotal());
+
         // Exclui a venda (os itens de VendaProduto serão excluídos em cascata)
         vendaRepository.delete(venda);
     }
@@ -266,19 +401,25 @@ public class VendaService {
         List<VendaProduto> itensVenda = new ArrayList<>();
         BigDecimal valorTotal = BigDecimal.ZERO;
 
+        // Baixa no Estoque: um UPDATE condicional por produto, sem ler-comparar-gravar
+        // (ou reserva em memória, para produtos sob o EstoqueLedger).
+        // Se faltar estoque em qualquer produto a exceção desfaz a transação inteira.
+        somarQuantidades(itensDTO).forEach(this::baixarEstoque);
+
+        // Carrega todos os produtos da venda em uma única consulta (WHERE id IN (...)),
+        // já com o estoque atualizado pela baixa acima
+        Map<Long, Produto> produtos = carregarProdutos(itensDTO);
+
         for (ItemVendaRequestDTO itemDTO : itensDTO) {
 
-            Produto produto = produtoRepository.findById(itemDTO.getProdutoId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + itemDTO.getProdutoId()));
+            Produto produto = produtos.get(itemDTO.getProdutoId());
+            if (produto == null) {
+                throw new ResourceNotFoundException("Produto não encontrado com ID: " + itemDTO.getProdutoId());
+            }
 
             int quantidade = itemDTO.getQuantidade();
             BigDecimal precoUnitario = produto.getPreco();
 
-            // Validação de Estoque
-            if (produto.getQuantidadeEstoque() < quantidade) {
-                throw new EstoqueInsuficienteException("Estoque insuficiente para o produto: " + produto.getNome());
-            }
-
             // Cria VendaProduto
             VendaProdutoId vpId = new VendaProdutoId(venda.getId(), produto.getId());
             VendaProduto itemVenda = new VendaProduto();
@@ -287,15 +428,14 @@ public class VendaService {
             itemVenda.setProduto(produto);
             itemVenda.setQuantidade(quantidade);
             itemVenda.setPrecoUnitario(precoUnitario);
+            // Sob o ledger a baixa fica pendente e é gravada em produtos pelo flush periódico
+            itemVenda.setEstoqueAplicado(!estoqueLedger.gerencia(produto.getId()));
 
             itensVenda.add(itemVenda);
 
-            // Cálculo e Baixa no Estoque
+            // Cálculo do valor total
             BigDecimal subtotal = precoUnitario.multiply(BigDecimal.valueOf(quantidade));
             valorTotal = valorTotal.add(subtotal);
-
-            produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - quantidade);
-            produtoRepository.save(produto);
         }
 
         venda.setItens(itensVenda);
@@ -303,4 +443,93 @@ public class VendaService {
 
         return vendaRepository.save(venda);
     }
+
+    // ==============================================
+    // MÉTODO AUXILIAR: Baixa condicional de estoque
+    // ==============================================
+    private void baixarEstoque(Long produtoId, int quantidade) {
+        if (estoqueLedger.gerencia(produtoId)) {
+            // A coluna só muda no flush do ledger (que atualiza o catálogo)
+            if (!estoqueLedger.reservar(produtoId, quantidade)) {
+                falharBaixa(produtoId);
+            }
+            return;
+        }
+        if (produtoRepository.baixarEstoque(produtoId, quantidade) == 0) {
+            falharBaixa(produtoId);
+        }
+        catalogoProdutos.ajustarEstoqueAposCommit(produtoId, -quantidade);
+    }
+
+    // Nenhuma linha afetada / reserva negada: o produto não existe ou o estoque não é suficiente
+    private void falharBaixa(Long produtoId) {
+        Produto produto = produtoRepository.findById(produtoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + produtoId));
+        throw new EstoqueInsuficienteException("Estoque insuficiente para o produto: " + produto.getNome());
+    }
+
+    // ==============================================
+    // MÉTODO AUXILIAR: Aplica ajustes (+ retira / - devolve) por produto
+    // ==============================================
+    private void aplicarAjustesDeEstoque(Long vendaId, Map<Long, Integer> ajustes) {
+        // Itens antigos ainda pendentes no ledger são gravados antes de serem substituídos
+        if (estoqueLedger.ativo()) {
+            estoqueLedger.aplicarPendentesDaVenda(vendaId);
+        }
+
+        ajustes.forEach((produtoId, quantidade) -> {
+            if (quantidade > 0) {
+                if (estoqueLedger.gerencia(produtoId)) {
+                    // O ledger confere o saldo; a baixa vai direto para a coluna (item já aplicado)
+                    if (!estoqueLedger.reservar(produtoId, quantidade)) {
+                        falharBaixa(produtoId);
+                    }
+                    produtoRepository.aplicarBaixa(produtoId, quantidade);
+                    catalogoProdutos.ajustarEstoqueAposCommit(produtoId, -quantidade);
+                } else {
+                    baixarEstoque(produtoId, quantidade);
+                }
+            } else if (quantidade < 0) {
+                produtoRepository.devolverEstoque(produtoId, -quantidade);
+                catalogoProdutos.ajustarEstoqueAposCommit(produtoId, -quantidade);
+            }
+            estoqueLedger.invalidarAposCommit(produtoId);
+        });
+    }
+
+    // ==============================================
+    // MÉTODO AUXILIAR: Inicializa itens e produtos de várias vendas
+    // Uma consulta por bloco de ids em vez de uma (ou mais) por venda.
+    // ==============================================
+    private void carregarItens(List<Venda> vendas) {
+        List<Long> ids = vendas.stream().map(Venda::getId).toList();
+        for (int inicio = 0; inicio < ids.size(); inicio += BLOCO_CARREGAMENTO_ITENS) {
+            vendaRepository.carregarItens(ids.subList(inicio, Math.min(inicio + BLOCO_CARREGAMENTO_ITENS, ids.size())));
+        }
+    }
+
+    // ==============================================
+    // MÉTODO AUXILIAR: Soma as quantidades pedidas por produto
+    // TreeMap: as linhas de produtos são sempre travadas em ordem de ID,
+    // evitando deadlock entre duas vendas com os mesmos produtos.
+    // ==============================================
+    private Map<Long, Integer> somarQuantidades(List<ItemVendaRequestDTO> itensDTO) {
+        Map<Long, Integer> quantidades = new TreeMap<>();
+        for (ItemVendaRequestDTO itemDTO : itensDTO) {
+            quantidades.merge(itemDTO.getProdutoId(), itemDTO.getQuantidade(), Integer::sum);
+        }
+        return quantidades;
+    }
+
+    // ==============================================
+    // MÉTODO AUXILIAR: Carrega os produtos referenciados pelos itens
+    // ==============================================
+    private Map<Long, Produto> carregarProdutos(List<ItemVendaRequestDTO> itensDTO) {
+        Set<Long> ids = itensDTO.stream()
+                .map(ItemVendaRequestDTO::getProdutoId)
+                .collect(Collectors.toSet());
+
+        return produtoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+    }
 }
\ No newline at end of file
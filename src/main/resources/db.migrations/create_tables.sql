@@ -62,3 +62,59 @@ CREATE TABLE venda_produto (
 
 ALTER TABLE users
     MODIFY COLUMN role VARCHAR(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL;
+
+-- ==========================
+-- LEDGER DE ESTOQUE: baixas reservadas em memória e ainda não aplicadas em produtos
+-- ==========================
+ALTER TABLE venda_produto
+    ADD COLUMN estoque_aplicado BOOLEAN NOT NULL DEFAULT TRUE;
+
+CREATE INDEX idx_venda_produto_estoque_pendente ON venda_produto (estoque_aplicado, produto_id);
+
+-- ==========================
+-- TABELA: VENDAS_IDEMPOTENCIA (header Idempotency-Key do POST /vendas)
+-- ==========================
+CREATE TABLE vendas_idempotencia (
+                                     vendedor_id INT NOT NULL,
+                                     chave VARCHAR(100) NOT NULL,
+                                     venda_id INT NULL,
+                                     criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                     PRIMARY KEY (vendedor_id, chave),
+                                     INDEX idx_vendas_idempotencia_criado_em (criado_em)
+);
+
+-- ==========================
+-- TABELA: VENDAS_TOTAIS_VENDEDOR (total por vendedor e dia, mantido a cada venda)
+-- ==========================
+CREATE TABLE vendas_totais_vendedor (
+                                        vendedor_id INT NOT NULL,
+                                        dia DATE NOT NULL,
+                                        quantidade_vendas BIGINT NOT NULL DEFAULT 0,
+                                        valor_total DECIMAL(14,2) NOT NULL DEFAULT 0,
+                                        PRIMARY KEY (vendedor_id, dia),
+                                        FOREIGN KEY (vendedor_id) REFERENCES users(id)
+);
+
+-- Carga inicial a partir das vendas existentes
+INSERT INTO vendas_totais_vendedor (vendedor_id, dia, quantidade_vendas, valor_total)
+SELECT vendedor_id, DATE(data_venda), COUNT(*), SUM(valor_total)
+FROM vendas
+GROUP BY vendedor_id, DATE(data_venda);
+
+-- ==========================
+-- ÍNDICES PARA LISTAGENS POR CURSOR (dataVenda DESC, id DESC)
+-- ==========================
+CREATE INDEX idx_vendas_data ON vendas (data_venda, id);
+CREATE INDEX idx_vendas_vendedor_data ON vendas (vendedor_id, data_venda, id);
+CREATE INDEX idx_vendas_cliente_data ON vendas (cliente_id, data_venda, id);
+
+-- ==========================
+-- TABELA: TOKENS_REVOGADOS (logout / revogação; SHA-256 do token até a expiração)
+-- ==========================
+CREATE TABLE tokens_revogados (
+                                  digest CHAR(64) PRIMARY KEY,
+                                  username VARCHAR(100),
+                                  expira_em TIMESTAMP NOT NULL,
+                                  revogado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                  INDEX idx_tokens_revogados_expira_em (expira_em)
+);
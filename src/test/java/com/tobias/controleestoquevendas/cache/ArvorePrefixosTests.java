@@ -0,0 +1,86 @@
+package com.tobias.controleestoquevendas.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArvorePrefixosTests {
+
+    @Test
+    void divideArestaEAchaPrefixoNoMeioDoRotulo() {
+        ArvorePrefixos arvore = ArvorePrefixos.construir(10, Map.of(), Map.of(1L, "Arroz"));
+        arvore.adicionar(2L, "Arame");
+
+        assertThat(arvore.buscar("ar", 10)).containsExactly(2L, 1L);
+        assertThat(arvore.buscar("arr", 10)).containsExactly(1L);
+        assertThat(arvore.buscar("ARRO", 10)).containsExactly(1L);
+        assertThat(arvore.buscar("ara", 10)).containsExactly(2L);
+        assertThat(arvore.buscar("arx", 10)).isEmpty();
+        assertThat(arvore.buscar("arroz integral", 10)).isEmpty();
+    }
+
+    @Test
+    void encontraPeloInicioDeCadaPalavra() {
+        ArvorePrefixos arvore = ArvorePrefixos.construir(10, Map.of(), Map.of(1L, "Arroz Tio João"));
+
+        assertThat(arvore.buscar("tio", 10)).containsExactly(1L);
+        assertThat(arvore.buscar("joa", 10)).containsExactly(1L);
+        assertThat(arvore.buscar("io", 10)).isEmpty();
+    }
+
+    @Test
+    void guardaOsKMaisVendidosDeCadaPrefixo() {
+        ArvorePrefixos arvore = ArvorePrefixos.construir(2,
+                Map.of(1L, 5L, 2L, 10L, 3L, 1L),
+                Map.of(1L, "Arroz", 2L, "Açúcar", 3L, "Azeite"));
+
+        assertThat(arvore.buscar("a", 10)).containsExactly(2L, 1L);
+        assertThat(arvore.buscar("a", 1)).containsExactly(2L);
+        // O terceiro só aparece num prefixo em que está entre os K
+        assertThat(arvore.buscar("az", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void removerPodaNosVaziosERecalculaOsMelhores() {
+        ArvorePrefixos arvore = ArvorePrefixos.construir(1,
+                Map.of(1L, 10L, 2L, 1L),
+                Map.of(1L, "Arroz", 2L, "Arame"));
+        assertThat(arvore.buscar("ar", 10)).containsExactly(1L);
+
+        arvore.remover(1L);
+
+        assertThat(arvore.buscar("arr", 10)).isEmpty();
+        assertThat(arvore.buscar("ar", 10)).containsExactly(2L);
+
+        arvore.remover(2L);
+        assertThat(arvore.buscar("a", 10)).isEmpty();
+
+        // A árvore podada continua aceitando inclusões
+        arvore.adicionar(3L, "Arroz");
+        assertThat(arvore.buscar("arr", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void renomearRecalculaOsMelhoresNosDoisCaminhos() {
+        ArvorePrefixos arvore = ArvorePrefixos.construir(1,
+                Map.of(1L, 10L, 2L, 1L),
+                Map.of(1L, "Banana", 2L, "Bacon"));
+        assertThat(arvore.buscar("ba", 10)).containsExactly(1L);
+
+        arvore.adicionar(1L, "Uva");
+
+        assertThat(arvore.buscar("ba", 10)).containsExactly(2L);
+        assertThat(arvore.buscar("ban", 10)).isEmpty();
+        assertThat(arvore.buscar("uv", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void empateNoVolumeOrdenaPorNome() {
+        ArvorePrefixos arvore = ArvorePrefixos.construir(10, Map.of(),
+                Map.of(3L, "Cenoura", 1L, "Cebola", 2L, "Cereja"));
+
+        assertThat(arvore.buscar("ce", 10)).containsExactly(1L, 3L, 2L);
+    }
+}
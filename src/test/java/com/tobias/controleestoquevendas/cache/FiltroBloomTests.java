@@ -0,0 +1,41 @@
+package com.tobias.controleestoquevendas.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FiltroBloomTests {
+
+    @Test
+    void nuncaDaFalsoNegativo() {
+        FiltroBloom filtro = new FiltroBloom(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filtro.adicionar("valor-" + i);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filtro.podeConter("valor-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsoPositivoPertoDaTaxaEscolhida() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("presente-" + i);
+        }
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.podeConter("ausente-" + i)) {
+                falsosPositivos++;
+            }
+        }
+        assertThat(falsosPositivos / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void recusaParametrosInvalidos() {
+        assertThatThrownBy(() -> new FiltroBloom(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FiltroBloom(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.tobias.controleestoquevendas.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FiltroExistenciaTests {
+
+    private static FiltroExistencia filtro() {
+        return new FiltroExistencia(1_000, 0.001, valor -> valor.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static List<String> tabela(String... valores) {
+        List<String> linhas = new ArrayList<>(List.of(valores));
+        IntStream.range(0, 500).forEach(i -> linhas.add("linha-" + i));
+        return linhas;
+    }
+
+    @Test
+    void antesDaCargaTudoPodeExistir() {
+        assertThat(filtro().podeExistir("qualquer")).isTrue();
+    }
+
+    @Test
+    void depoisDaCargaRespondeNaoParaOQueNaoEstaNaTabela() {
+        FiltroExistencia filtro = filtro();
+        filtro.reconstruir(() -> tabela("Arroz"));
+
+        assertThat(filtro.podeExistir("  ARROZ ")).isTrue();
+        assertThat(filtro.podeExistir("linha-42")).isTrue();
+        assertThat(filtro.podeExistir("feijao")).isFalse();
+        assertThat(filtro.podeExistir(null)).isTrue();
+    }
+
+    @Test
+    void adicionadoDepoisDaCargaPassaAExistir() {
+        FiltroExistencia filtro = filtro();
+        filtro.reconstruir(() -> tabela());
+
+        filtro.adicionar("Feijao");
+
+        assertThat(filtro.podeExistir("feijao")).isTrue();
+    }
+
+    @Test
+    void gravadoDuranteAReconstrucaoNaoSePerde() {
+        FiltroExistencia filtro = filtro();
+        filtro.adicionar("antes");
+        filtro.reconstruir(() -> {
+            // Gravação que confirma depois da leitura da tabela
+            filtro.adicionar("durante");
+            return tabela();
+        });
+
+        assertThat(filtro.podeExistir("antes")).isTrue();
+        assertThat(filtro.podeExistir("durante")).isTrue();
+    }
+
+    @Test
+    void reconstrucaoSeguinteDescartaOQueSaiuDaTabela() {
+        FiltroExistencia filtro = filtro();
+        filtro.adicionar("excluido");
+        filtro.reconstruir(() -> tabela());
+        assertThat(filtro.podeExistir("excluido")).isTrue();
+
+        // Os recentes da carga anterior já foram lidos da tabela (ou excluídos): não passam adiante
+        filtro.reconstruir(() -> tabela());
+        assertThat(filtro.podeExistir("excluido")).isFalse();
+    }
+}
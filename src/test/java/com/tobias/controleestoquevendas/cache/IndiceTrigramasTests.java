@@ -0,0 +1,72 @@
+package com.tobias.controleestoquevendas.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceTrigramasTests {
+
+    private IndiceTrigramas<Long> indice;
+
+    @BeforeEach
+    void montarIndice() {
+        Map<Long, String> nomes = Map.of(
+                1L, "Arroz Integral",
+                2L, "Arroz Branco",
+                3L, "Feijão Carioca",
+                4L, "Pão-de-Açúcar",
+                5L, "Farinha de Arroz");
+        indice = IndiceTrigramas.construir(nomes.entrySet(), Map.Entry::getKey, Map.Entry::getValue, Map.Entry::getKey);
+    }
+
+    @Test
+    void normalizaAcentoCaixaEPontuacao() {
+        assertThat(IndiceTrigramas.normalizar("  Pão-de-Açúcar! ")).isEqualTo("pao de acucar");
+        assertThat(indice.buscar("ACUCAR", 10)).containsExactly(4L);
+        assertThat(indice.buscar("feijao", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void intersectaAsListasDeTodosOsTrigramas() {
+        // "arroz" está em 1, 2 e 5; "integral" só em 1
+        assertThat(indice.buscar("arroz integral", 10)).containsExactly(1L);
+        assertThat(indice.buscar("roz bra", 10)).containsExactly(2L);
+        // Trigramas presentes, mas não em sequência no mesmo nome
+        assertThat(indice.buscar("branco integral", 10)).isEmpty();
+        assertThat(indice.buscar("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void ordenaPorRelevanciaDepoisTamanhoDoNome() {
+        // Começo do nome (1 e 2, o mais curto antes) e depois início de palavra (5)
+        assertThat(indice.buscar("arroz", 10)).containsExactly(2L, 1L, 5L);
+        assertThat(indice.buscar("arroz", 2)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void termoCurtoPercorreTodosOsNomes() {
+        // Menos de 3 caracteres não forma trigrama: confere nome a nome
+        assertThat(indice.buscar("ar", 10)).containsExactly(2L, 1L, 5L, 4L, 3L);
+        assertThat(indice.buscar("í", 10)).containsExactly(1L, 3L, 5L);
+        assertThat(indice.buscar(" ", 10)).isEmpty();
+    }
+
+    @Test
+    void renomearERemoverAtualizamAsListas() {
+        indice.adicionar(1L, "Macarrão", 1L);
+        assertThat(indice.buscar("integral", 10)).isEmpty();
+        assertThat(indice.buscar("carrao", 10)).containsExactly(1L);
+        assertThat(indice.buscar("arroz", 10)).containsExactly(2L, 5L);
+
+        indice.remover(2L);
+        assertThat(indice.buscar("arroz", 10)).containsExactly(5L);
+        assertThat(indice.tamanho()).isEqualTo(4);
+
+        indice.adicionar(6L, "Arroz Parboilizado", 6L);
+        assertThat(indice.buscar("arroz", 10)).isEqualTo(List.of(6L, 5L));
+    }
+}
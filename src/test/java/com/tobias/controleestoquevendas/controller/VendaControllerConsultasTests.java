@@ -0,0 +1,155 @@
+package com.tobias.controleestoquevendas.controller;
+
+import com.tobias.controleestoquevendas.model.*;
+import com.tobias.controleestoquevendas.repository.ClienteRepository;
+import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import com.tobias.controleestoquevendas.repository.UserRepository;
+import com.tobias.controleestoquevendas.repository.VendaRepository;
+import com.tobias.controleestoquevendas.security.CustomUserDetails;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Número de comandos SQL por requisição nas listagens de vendas: não pode crescer
+// com o tamanho da página (N+1 em cliente, vendedor, itens ou produtos).
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VendaControllerConsultasTests {
+
+    private static final int TOTAL_VENDAS = 25;
+    private static final int TOTAL_CLIENTES = 5;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics estatisticas;
+    private Authentication gerenteAutenticado;
+    private Long clienteId;
+
+    @BeforeAll
+    void popularBanco() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Numa transação só: os itens (@MapsId) precisam de produtos e venda gerenciados
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User gerente = userRepository.save(new User(null, "gerente.consultas", "senha", "GERENTE"));
+            CustomUserDetails principal = new CustomUserDetails(gerente);
+            gerenteAutenticado = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+            List<Cliente> clientes = new ArrayList<>();
+            for (int i = 0; i < TOTAL_CLIENTES; i++) {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente " + i);
+                cliente.setCpf("0000000000" + i);
+                cliente.setTelefone("3599999000" + i);
+                clientes.add(clienteRepository.save(cliente));
+            }
+            clienteId = clientes.get(0).getId();
+
+            List<Produto> produtos = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Produto produto = new Produto();
+                produto.setNome("Produto " + i);
+                produto.setCategoria("Categoria " + (i % 2));
+                produto.setPreco(BigDecimal.valueOf(10 + i));
+                produto.setQuantidadeEstoque(1000);
+                produtos.add(produtoRepository.save(produto));
+            }
+
+            // Cada venda com cliente e produtos diferentes da anterior: nada fica em cache
+            // no contexto de persistência entre uma linha e outra
+            for (int i = 0; i < TOTAL_VENDAS; i++) {
+                Venda venda = new Venda();
+                venda.setCliente(clientes.get(i % TOTAL_CLIENTES));
+                venda.setVendedor(gerente);
+                venda.setDataVenda(INICIO.plusHours(i));
+
+                List<VendaProduto> itens = new ArrayList<>();
+                BigDecimal total = BigDecimal.ZERO;
+                for (Produto produto : List.of(produtos.get(i % 4), produtos.get((i + 1) % 4))) {
+                    VendaProduto item = new VendaProduto();
+                    item.setId(new VendaProdutoId(null, produto.getId()));
+                    item.setVenda(venda);
+                    item.setProduto(produto);
+                    item.setQuantidade(1);
+                    item.setPrecoUnitario(produto.getPreco());
+                    itens.add(item);
+                    total = total.add(produto.getPreco());
+                }
+                venda.setItens(itens);
+                venda.setValorTotal(total);
+                vendaRepository.save(venda);
+            }
+        });
+    }
+
+    @Test
+    void listagemPaginadaNaoCresceComOTamanhoDaPagina() throws Exception {
+        assertThat(consultas("/vendas?page=0&size=20")).isEqualTo(consultas("/vendas?page=0&size=5"));
+    }
+
+    @Test
+    void listagemPorCursorNaoCresceComOTamanhoDaPagina() throws Exception {
+        assertThat(consultas("/vendas?cursor=&size=20")).isEqualTo(consultas("/vendas?cursor=&size=5"));
+        assertThat(consultas("/vendas/meus?cursor=&size=20")).isEqualTo(consultas("/vendas/meus?cursor=&size=5"));
+        assertThat(consultas("/vendas/cliente/" + clienteId + "?cursor=&size=5"))
+                .isEqualTo(consultas("/vendas/cliente/" + clienteId + "?cursor=&size=2"));
+    }
+
+    @Test
+    void relatorioPorPeriodoNaoCresceComONumeroDeVendas() throws Exception {
+        String periodoCurto = "/vendas/periodo?dataInicial=" + INICIO + "&dataFinal=" + INICIO.plusHours(4);
+        String periodoLongo = "/vendas/periodo?dataInicial=" + INICIO + "&dataFinal=" + INICIO.plusHours(TOTAL_VENDAS);
+        assertThat(consultas(periodoLongo)).isEqualTo(consultas(periodoCurto));
+    }
+
+    private long consultas(String url) throws Exception {
+        estatisticas.clear();
+        mockMvc.perform(get(url).with(authentication(gerenteAutenticado))).andExpect(status().isOk());
+        return estatisticas.getPrepareStatementCount();
+    }
+}
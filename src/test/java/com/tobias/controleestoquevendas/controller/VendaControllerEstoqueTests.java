@@ -0,0 +1,189 @@
+package com.tobias.controleestoquevendas.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.tobias.controleestoquevendas.model.Cliente;
+import com.tobias.controleestoquevendas.model.Produto;
+import com.tobias.controleestoquevendas.model.User;
+import com.tobias.controleestoquevendas.repository.ClienteRepository;
+import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import com.tobias.controleestoquevendas.repository.UserRepository;
+import com.tobias.controleestoquevendas.repository.VendaRepository;
+import com.tobias.controleestoquevendas.security.CustomUserDetails;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Baixa condicional de estoque no POST /vendas (sem o ledger): nunca vende além do
+// estoque e, quando falta, a venda inteira é desfeita. Um retry com a mesma
+// Idempotency-Key não baixa o estoque de novo.
+// H2 em modo MySQL: o total por vendedor usa INSERT ... ON DUPLICATE KEY UPDATE.
+// Cache de idempotência com uma entrada só, para exercitar a chave já despejada.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:vendas-estoque;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "vendas.idempotencia.capacidade=1"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VendaControllerEstoqueTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    private Authentication vendedorAutenticado;
+    private Long clienteId;
+
+    @BeforeAll
+    void popularBanco() {
+        User vendedor = userRepository.save(new User(null, "vendedor.estoque", "senha", "VENDEDOR"));
+        CustomUserDetails principal = new CustomUserDetails(vendedor);
+        vendedorAutenticado = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Estoque");
+        cliente.setCpf("52998224725");
+        cliente.setTelefone("35999990001");
+        clienteId = clienteRepository.save(cliente).getId();
+    }
+
+    @Test
+    void itensRepetidosSaoSomadosAntesDaBaixa() throws Exception {
+        Long produtoId = produto("Caneta", 5);
+        long vendasAntes = vendaRepository.count();
+
+        // 3 + 3 cabem isoladamente, mas não juntos
+        vender(item(produtoId, 3) + "," + item(produtoId, 3))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("Estoque insuficiente")));
+
+        assertThat(estoque(produtoId)).isEqualTo(5);
+        assertThat(vendaRepository.count()).isEqualTo(vendasAntes);
+    }
+
+    @Test
+    void faltaEmUmProdutoDesfazABaixaDosOutros() throws Exception {
+        Long lapis = produto("Lápis", 10);
+        Long borracha = produto("Borracha", 1);
+        long vendasAntes = vendaRepository.count();
+
+        // O lápis (id menor) é baixado primeiro; a falta da borracha desfaz essa baixa
+        vender(item(lapis, 4) + "," + item(borracha, 2))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("Borracha")));
+
+        assertThat(estoque(lapis)).isEqualTo(10);
+        assertThat(estoque(borracha)).isEqualTo(1);
+        assertThat(vendaRepository.count()).isEqualTo(vendasAntes);
+    }
+
+    @Test
+    void vendaDentroDoEstoqueBaixaAQuantidade() throws Exception {
+        Long produtoId = produto("Caderno", 5);
+
+        vender(item(produtoId, 5)).andExpect(status().isCreated());
+
+        assertThat(estoque(produtoId)).isZero();
+        vender(item(produtoId, 1)).andExpect(status().isBadRequest());
+        assertThat(estoque(produtoId)).isZero();
+    }
+
+    @Test
+    void repeticaoComMesmaChaveDevolveAVendaOriginalSemNovaBaixa() throws Exception {
+        Long produtoId = produto("Régua", 10);
+        long vendasAntes = vendaRepository.count();
+
+        MvcResult original = vender(item(produtoId, 3), "pdv-1-cupom-42")
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+        Number vendaId = JsonPath.read(original.getResponse().getContentAsString(), "$.id");
+
+        vender(item(produtoId, 3), "pdv-1-cupom-42")
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(vendaId.longValue()));
+
+        assertThat(estoque(produtoId)).isEqualTo(7);
+        assertThat(vendaRepository.count()).isEqualTo(vendasAntes + 1);
+    }
+
+    @Test
+    void repeticaoForaDoCacheEPegaPelaReservaDaChave() throws Exception {
+        Long produtoId = produto("Grampeador", 10);
+
+        MvcResult original = vender(item(produtoId, 2), "pdv-2-cupom-7").andExpect(status().isCreated()).andReturn();
+        Number vendaId = JsonPath.read(original.getResponse().getContentAsString(), "$.id");
+        // Outra chave despeja a primeira do cache
+        vender(item(produtoId, 1), "pdv-2-cupom-8").andExpect(status().isCreated());
+
+        vender(item(produtoId, 2), "pdv-2-cupom-7")
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(vendaId.longValue()));
+
+        assertThat(estoque(produtoId)).isEqualTo(7);
+    }
+
+    private ResultActions vender(String itens) throws Exception {
+        return vender(itens, null);
+    }
+
+    private ResultActions vender(String itens, String chaveIdempotencia) throws Exception {
+        MockHttpServletRequestBuilder requisicao = post("/vendas")
+                .with(authentication(vendedorAutenticado))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"clienteId\":" + clienteId + ",\"itens\":[" + itens + "]}");
+        if (chaveIdempotencia != null) {
+            requisicao.header("Idempotency-Key", chaveIdempotencia);
+        }
+        return mockMvc.perform(requisicao);
+    }
+
+    private static String item(Long produtoId, int quantidade) {
+        return "{\"produtoId\":" + produtoId + ",\"quantidade\":" + quantidade + "}";
+    }
+
+    private Long produto(String nome, int estoque) {
+        Produto produto = new Produto();
+        produto.setNome(nome);
+        produto.setCategoria("Papelaria");
+        produto.setPreco(BigDecimal.TEN);
+        produto.setQuantidadeEstoque(estoque);
+        return produtoRepository.save(produto).getId();
+    }
+
+    private int estoque(Long produtoId) {
+        return produtoRepository.findQuantidadeEstoque(produtoId).orElseThrow();
+    }
+}
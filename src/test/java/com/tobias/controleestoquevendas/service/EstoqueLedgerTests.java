@@ -0,0 +1,142 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.tobias.controleestoquevendas.repository.ProdutoRepository;
+import com.tobias.controleestoquevendas.repository.VendaProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Reserva em memória do EstoqueLedger: saldo, desfazer na falha da transação e a
+// invariante da carga (disponivel = coluna - pendentes no diário - reservas em voo)
+class EstoqueLedgerTests {
+
+    private static final Long PRODUTO = 1L;
+
+    private ProdutoRepository produtoRepository;
+    private VendaProdutoRepository vendaProdutoRepository;
+    private EstoqueLedger ledger;
+
+    @BeforeEach
+    void criarLedger() {
+        produtoRepository = mock(ProdutoRepository.class);
+        vendaProdutoRepository = mock(VendaProdutoRepository.class);
+        ledger = new EstoqueLedger(produtoRepository, vendaProdutoRepository, null,
+                mock(PlatformTransactionManager.class), true, Set.of());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void limparSincronizacao() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void reservaDescontaDoSaldoLidoDoBancoMenosAsPendentes() {
+        banco(10, 3);
+
+        assertThat(ledger.reservar(PRODUTO, 5)).isTrue();
+        assertThat(ledger.reservar(PRODUTO, 3)).isFalse();
+        assertThat(ledger.consultar(PRODUTO)).hasValue(2);
+    }
+
+    @Test
+    void transacaoDesfeitaDevolveAReserva() {
+        banco(10, 0);
+
+        assertThat(ledger.reservar(PRODUTO, 4)).isTrue();
+        concluirTransacao(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(ledger.consultar(PRODUTO)).hasValue(10);
+    }
+
+    @Test
+    void transacaoConfirmadaMantemABaixa() {
+        banco(10, 0);
+
+        assertThat(ledger.reservar(PRODUTO, 4)).isTrue();
+        concluirTransacao(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(ledger.consultar(PRODUTO)).hasValue(6);
+    }
+
+    @Test
+    void recargaDescontaAsReservasAindaEmVoo() {
+        banco(10, 0);
+        assertThat(ledger.reservar(PRODUTO, 4)).isTrue();
+
+        // Saldo invalidado com a reserva ainda sem commit: ela não está na coluna nem no diário
+        List<TransactionSynchronization> reservaEmVoo = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        ledger.invalidarAposCommit(PRODUTO);
+        banco(9, 1);
+
+        assertThat(ledger.consultar(PRODUTO)).hasValue(9 - 1 - 4);
+
+        reservaEmVoo.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(ledger.consultar(PRODUTO)).hasValue(9 - 1);
+    }
+
+    @Test
+    void produtoInexistenteNaoReserva() {
+        when(produtoRepository.findQuantidadeEstoque(PRODUTO)).thenReturn(Optional.empty());
+
+        assertThat(ledger.reservar(PRODUTO, 1)).isFalse();
+        assertThat(ledger.consultar(PRODUTO)).isEmpty();
+    }
+
+    @Test
+    void subidaCarregaOsContadoresSemLeituraNaVenda() {
+        when(produtoRepository.findQuantidadesEstoque()).thenReturn(List.of(
+                new Object[]{PRODUTO, 10}, new Object[]{2L, 5}));
+        when(vendaProdutoRepository.somarBaixasPendentesPorProduto()).thenReturn(List.<Object[]>of(
+                new Object[]{PRODUTO, 3L}));
+
+        ledger.recuperarBaixasPendentes();
+
+        assertThat(ledger.reservar(PRODUTO, 7)).isTrue();
+        assertThat(ledger.consultar(2L)).hasValue(5);
+        verify(produtoRepository, never()).findQuantidadeEstoque(any());
+    }
+
+    @Test
+    void agendadorRecarregaOSaldoInvalidado() {
+        banco(10, 0);
+        assertThat(ledger.consultar(PRODUTO)).hasValue(10);
+
+        ledger.invalidarAposCommit(PRODUTO);
+        concluirTransacao(TransactionSynchronization.STATUS_COMMITTED);
+        banco(8, 0);
+        ledger.aplicarBaixasPendentes();
+
+        assertThat(ledger.reservar(PRODUTO, 8)).isTrue();
+        verify(produtoRepository, times(2)).findQuantidadeEstoque(PRODUTO);
+    }
+
+    private void banco(int coluna, long pendentes) {
+        when(produtoRepository.findQuantidadeEstoque(PRODUTO)).thenReturn(Optional.of(coluna));
+        when(vendaProdutoRepository.somarBaixasPendentes(PRODUTO)).thenReturn(pendentes);
+    }
+
+    private static void concluirTransacao(int status) {
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizacoes.forEach(s -> s.afterCompletion(status));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+}
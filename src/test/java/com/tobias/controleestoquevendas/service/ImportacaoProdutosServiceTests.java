@@ -0,0 +1,204 @@
+package com.tobias.controleestoquevendas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tobias.controleestoquevendas.cache.FiltroExistencia;
+import com.tobias.controleestoquevendas.dto.ImportacaoProdutosResultadoDTO;
+import com.tobias.controleestoquevendas.model.Produto;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Leitura do CSV/NDJSON, deduplicação em memória e montagem dos lotes JDBC
+class ImportacaoProdutosServiceTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private CatalogoProdutos catalogo;
+    private AutocompleteProdutos autocomplete;
+    private ImportacaoProdutosService service;
+
+    @BeforeEach
+    void criarService() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        catalogo = mock(CatalogoProdutos.class);
+        autocomplete = mock(AutocompleteProdutos.class);
+        FiltrosCadastro filtros = mock(FiltrosCadastro.class);
+        when(filtros.nomesProduto()).thenReturn(new FiltroExistencia(100, 0.01, CatalogoProdutos::chaveNome));
+        when(catalogo.listar()).thenReturn(List.of(
+                new Produto(7L, "Açúcar Cristal", "Mercearia", BigDecimal.ONE, 3, LocalDateTime.now())));
+
+        service = new ImportacaoProdutosService(jdbcTemplate, mock(PlatformTransactionManager.class),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper().findAndRegisterModules(),
+                catalogo, autocomplete, filtros, 1000, 1000);
+    }
+
+    // ---------------------------------------------------------------------
+    // dividirCsv
+    // ---------------------------------------------------------------------
+    @Test
+    void dividirCsvRespeitaAspas() {
+        assertThat(ImportacaoProdutosService.dividirCsv("a,\"b,c\",d", ','))
+                .containsExactly("a", "b,c", "d");
+        assertThat(ImportacaoProdutosService.dividirCsv("\"Pão \"\"Caseiro\"\"\";x", ';'))
+                .containsExactly("Pão \"Caseiro\"", "x");
+    }
+
+    @Test
+    void dividirCsvMantemCamposVazios() {
+        assertThat(ImportacaoProdutosService.dividirCsv(",a,,", ',')).containsExactly("", "a", "", "");
+        assertThat(ImportacaoProdutosService.dividirCsv("a,b;c", ';')).containsExactly("a,b", "c");
+    }
+
+    // ---------------------------------------------------------------------
+    // importar
+    // ---------------------------------------------------------------------
+    @Test
+    void csvComPontoEVirgulaVirgulaDecimalEBom() {
+        ImportacaoProdutosResultadoDTO resultado = importarCsv(
+                "\uFEFFNome;Categoria;Preco;QuantidadeEstoque\n" +
+                "Arroz Integral;Grãos;10,50;5\n", false);
+
+        assertThat(resultado.getInseridos()).isEqualTo(1);
+        assertThat(resultado.getErros()).isEmpty();
+        Object[] linha = inseridos().get(0);
+        assertThat(linha[0]).isEqualTo("Arroz Integral");
+        assertThat(linha[2]).isEqualTo(new BigDecimal("10.50"));
+        assertThat(linha[3]).isEqualTo(5);
+        verify(catalogo).invalidar();
+        verify(autocomplete).invalidar();
+    }
+
+    @Test
+    void colunasEmQualquerOrdemEAspasComSeparador() {
+        importarCsv("quantidadeEstoque,preco,nome,categoria\n" +
+                "2,3.99,\"Biscoito, Recheado\",Doces\n", false);
+
+        Object[] linha = inseridos().get(0);
+        assertThat(linha[0]).isEqualTo("Biscoito, Recheado");
+        assertThat(linha[2]).isEqualTo(new BigDecimal("3.99"));
+    }
+
+    @Test
+    void rejeitaLinhasInvalidasRepetidasEJaCadastradas() {
+        ImportacaoProdutosResultadoDTO resultado = importarCsv(
+                "nome,categoria,preco,quantidadeEstoque\n" +
+                "Feijão,Grãos,8.00,10\n" +
+                "FEIJAO,Grãos,8.00,10\n" +
+                "acucar cristal,Mercearia,4.00,1\n" +
+                "Sal,Mercearia,abc,1\n" +
+                "Óleo,Mercearia,-1,1\n" +
+                "\n" +
+                "Café,Bebidas,12.00,4\n", false);
+
+        assertThat(resultado.getLinhasProcessadas()).isEqualTo(6);
+        assertThat(resultado.getInseridos()).isEqualTo(2);
+        assertThat(resultado.getRejeitados()).isEqualTo(4);
+        assertThat(resultado.getErros())
+                .extracting(ImportacaoProdutosResultadoDTO.ErroLinha::getLinha)
+                .containsExactly(3L, 4L, 5L, 6L);
+        assertThat(resultado.getErros().get(0).getErro()).contains("linha 2");
+        assertThat(resultado.getErros().get(1).getErro()).contains("Já existe");
+        assertThat(resultado.getErros().get(2).getErro()).contains("Preço inválido");
+        assertThat(resultado.getErros().get(3).getErro()).isEqualTo("O preço não pode ser negativo");
+        assertThat(inseridos()).extracting(linha -> linha[0]).containsExactly("Feijão", "Café");
+    }
+
+    @Test
+    void atualizarGravaCategoriaEPrecoDoExistente() {
+        ImportacaoProdutosResultadoDTO resultado = importarCsv(
+                "nome,categoria,preco,quantidadeEstoque\n" +
+                "ACUCAR CRISTAL,Doces,4.50,99\n", true);
+
+        assertThat(resultado.getAtualizados()).isEqualTo(1);
+        assertThat(resultado.getInseridos()).isZero();
+        List<Object[]> atualizados = lote("UPDATE");
+        assertThat(atualizados.get(0)).containsExactly("Doces", new BigDecimal("4.50"), 7L);
+    }
+
+    @Test
+    void cabecalhoIncompletoNaoGravaNada() {
+        assertThatThrownBy(() -> importarCsv("nome,preco\nArroz,1.00\n", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("categoria");
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+        verify(catalogo, never()).invalidar();
+    }
+
+    @Test
+    void ndjsonIgnoraIdEApontaJsonInvalido() {
+        String corpo = "{\"id\":99,\"nome\":\"Leite\",\"categoria\":\"Laticínios\",\"preco\":5.2,\"quantidadeEstoque\":7}\n" +
+                "{\"nome\":\n";
+        ImportacaoProdutosResultadoDTO resultado = service.importar(corpo(corpo), ImportacaoProdutosService.Formato.NDJSON, false);
+
+        assertThat(resultado.getInseridos()).isEqualTo(1);
+        assertThat(resultado.getErros()).singleElement()
+                .satisfies(erro -> {
+                    assertThat(erro.getLinha()).isEqualTo(2L);
+                    assertThat(erro.getErro()).startsWith("JSON inválido");
+                });
+        assertThat(inseridos().get(0)[0]).isEqualTo("Leite");
+    }
+
+    @Test
+    void loteRecusadoEGravadoLinhaALinha() {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT"), anyList()))
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenAnswer(chamada -> {
+            Object[] parametros = (Object[]) chamada.getRawArguments()[1];
+            if ("Arroz".equals(parametros[0])) {
+                throw new DuplicateKeyException("Duplicate entry 'Arroz'");
+            }
+            return 1;
+        });
+
+        ImportacaoProdutosResultadoDTO resultado = importarCsv(
+                "nome,categoria,preco,quantidadeEstoque\n" +
+                "Arroz,Grãos,5.00,1\n" +
+                "Feijão,Grãos,8.00,1\n", false);
+
+        assertThat(resultado.getInseridos()).isEqualTo(1);
+        assertThat(resultado.getErros()).singleElement()
+                .satisfies(erro -> {
+                    assertThat(erro.getLinha()).isEqualTo(2L);
+                    assertThat(erro.getErro()).startsWith("Recusado pelo banco");
+                });
+    }
+
+    private ImportacaoProdutosResultadoDTO importarCsv(String csv, boolean atualizar) {
+        return service.importar(corpo(csv), ImportacaoProdutosService.Formato.CSV, atualizar);
+    }
+
+    private static ByteArrayInputStream corpo(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Object[]> inseridos() {
+        return lote("INSERT");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> lote(String comando) {
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(comando), lote.capture());
+        return lote.getValue();
+    }
+}